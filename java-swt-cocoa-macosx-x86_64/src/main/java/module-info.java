@@ -5,6 +5,7 @@ module de.carne.swt {
 	requires transitive org.eclipse.swt.cocoa.macosx.x86_64;
 	requires transitive org.eclipse.jdt.annotation;
 	requires transitive de.carne;
+	requires java.management;
 
 	exports de.carne.swt;
 	exports de.carne.swt.dnd;
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.events;
+
+import java.util.function.Consumer;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+
+/**
+ * Event listener for mapping a SWT event to a consuming action, which is invoked at most once per event loop turn.
+ * <p>
+ * Only the latest event received since the previous invocation is delivered to the consuming action. The delivery
+ * takes place via a single {@linkplain org.eclipse.swt.widgets.Display#asyncExec(Runnable)} call shared by all
+ * coalescing listeners of a {@linkplain org.eclipse.swt.widgets.Display}. This makes it suitable for high frequency
+ * events with expensive handlers (like {@linkplain org.eclipse.swt.SWT#Resize} or
+ * {@linkplain org.eclipse.swt.SWT#MouseMove}). As the delivery is deferred, it must not be used for events whose
+ * fields are only valid during the dispatch (like the {@linkplain org.eclipse.swt.graphics.GC} of a
+ * {@linkplain org.eclipse.swt.SWT#Paint} event) or which need to be vetoed via {@linkplain Event#doit}.
+ */
+public class CoalescedEventConsumer implements Listener {
+
+	private final Consumer<Event> consumer;
+	@Nullable
+	private Event pendingEvent = null;
+
+	private CoalescedEventConsumer(Consumer<Event> consumer) {
+		this.consumer = consumer;
+	}
+
+	/**
+	 * Coalescing {@linkplain Event} listener.
+	 *
+	 * @param consumer The consuming action.
+	 * @return The event listener.
+	 */
+	public static CoalescedEventConsumer latest(Consumer<Event> consumer) {
+		return new CoalescedEventConsumer(consumer);
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		boolean scheduled = this.pendingEvent != null;
+
+		this.pendingEvent = event;
+		if (!scheduled) {
+			EventCoalescer.get(event.widget.getDisplay()).schedule(this);
+		}
+	}
+
+	void deliver() {
+		Event event = this.pendingEvent;
+
+		this.pendingEvent = null;
+		if (event != null && !event.widget.isDisposed()) {
+			this.consumer.accept(event);
+		}
+	}
+
+}
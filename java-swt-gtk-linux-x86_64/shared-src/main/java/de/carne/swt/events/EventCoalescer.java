@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.events;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Per {@linkplain Display} queue of the {@linkplain CoalescedEventConsumer}s with pending events.
+ * <p>
+ * All pending events are delivered by a single {@linkplain Display#asyncExec(Runnable)} call. As events are dispatched
+ * on the {@linkplain Display} thread only, no synchronization is required.
+ */
+final class EventCoalescer {
+
+	private static final String DISPLAY_DATA_KEY = EventCoalescer.class.getName();
+
+	private final Display display;
+	private final Queue<CoalescedEventConsumer> pendingConsumers = new ArrayDeque<>();
+	private boolean flushScheduled = false;
+
+	private EventCoalescer(Display display) {
+		this.display = display;
+	}
+
+	static EventCoalescer get(Display display) {
+		Object coalescer = display.getData(DISPLAY_DATA_KEY);
+
+		if (!(coalescer instanceof EventCoalescer)) {
+			coalescer = new EventCoalescer(display);
+			display.setData(DISPLAY_DATA_KEY, coalescer);
+		}
+		return (EventCoalescer) coalescer;
+	}
+
+	void schedule(CoalescedEventConsumer consumer) {
+		this.pendingConsumers.add(consumer);
+		if (!this.flushScheduled) {
+			this.flushScheduled = true;
+			this.display.asyncExec(this::flush);
+		}
+	}
+
+	private void flush() {
+		this.flushScheduled = false;
+
+		// Events scheduled by the consuming actions are delivered during the next event loop turn
+		int pendingCount = this.pendingConsumers.size();
+
+		try {
+			while (pendingCount > 0) {
+				CoalescedEventConsumer consumer = this.pendingConsumers.remove();
+
+				pendingCount--;
+				consumer.deliver();
+			}
+		} finally {
+			if (!this.pendingConsumers.isEmpty() && !this.flushScheduled && !this.display.isDisposed()) {
+				this.flushScheduled = true;
+				this.display.asyncExec(this::flush);
+			}
+		}
+	}
+
+}
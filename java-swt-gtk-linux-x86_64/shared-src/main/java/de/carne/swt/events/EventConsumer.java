@@ -28,6 +28,9 @@ import org.eclipse.swt.widgets.Listener;
 
 /**
  * Event listener for mapping a typed SWT event to a consuming action.
+ * <p>
+ * A new typed event is created for every dispatched event. Use {@linkplain EventViewConsumer} for high frequency
+ * events.
  *
  * @param <T> The event type to listen for.
  */
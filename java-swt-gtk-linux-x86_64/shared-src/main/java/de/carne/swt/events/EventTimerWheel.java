@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.events;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Hashed timer wheel used to schedule the delayed actions of all {@linkplain TimedEventConsumer}s of a
+ * {@linkplain Display}.
+ * <p>
+ * The wheel is driven by a single {@linkplain Display#timerExec(int, Runnable)} tick, which is only active as long as
+ * there are scheduled timeouts. Scheduling, postponing and expiring a timeout are O(1) operations. Postponed timeouts
+ * are moved to their new slot lazily as soon as their previous slot is visited. As events are dispatched on the
+ * {@linkplain Display} thread only, no synchronization is required.
+ */
+final class EventTimerWheel {
+
+	private static final String DISPLAY_DATA_KEY = EventTimerWheel.class.getName();
+
+	static final int TICK_MILLIS = 10;
+
+	private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+	private static final int WHEEL_SIZE = 256;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+	private final Display display;
+	private final @Nullable Timeout[] slots;
+	private final long startNanos = System.nanoTime();
+	private long currentTick = 0;
+	private int scheduledCount = 0;
+	private boolean ticking = false;
+
+	private EventTimerWheel(Display display) {
+		this.display = display;
+		this.slots = new Timeout[WHEEL_SIZE];
+	}
+
+	static EventTimerWheel get(Display display) {
+		Object wheel = display.getData(DISPLAY_DATA_KEY);
+
+		if (!(wheel instanceof EventTimerWheel)) {
+			wheel = new EventTimerWheel(display);
+			display.setData(DISPLAY_DATA_KEY, wheel);
+		}
+		return (EventTimerWheel) wheel;
+	}
+
+	void schedule(Timeout timeout, long delayMillis) {
+		if (this.scheduledCount == 0 && !this.ticking) {
+			this.currentTick = nowTick();
+		}
+
+		long delayTicks = Math.max(1, (delayMillis + TICK_MILLIS - 1) / TICK_MILLIS);
+
+		timeout.deadlineTick = nowTick() + delayTicks;
+		if (!timeout.scheduled) {
+			timeout.scheduled = true;
+			this.scheduledCount++;
+			insert(timeout);
+		}
+		if (!this.ticking) {
+			this.ticking = true;
+			this.display.timerExec(TICK_MILLIS, this::tick);
+		}
+	}
+
+	private long nowTick() {
+		return (System.nanoTime() - this.startNanos) / TICK_NANOS;
+	}
+
+	private void insert(Timeout timeout) {
+		int slot = (int) (Math.max(timeout.deadlineTick, this.currentTick + 1) & WHEEL_MASK);
+
+		timeout.next = this.slots[slot];
+		this.slots[slot] = timeout;
+	}
+
+	private void tick() {
+		this.ticking = false;
+
+		RuntimeException expireException = null;
+
+		try {
+			long nowTick = nowTick();
+			long slotCount = Math.min(nowTick - this.currentTick, WHEEL_SIZE);
+
+			for (long slotTick = this.currentTick + 1; slotTick <= this.currentTick + slotCount; slotTick++) {
+				RuntimeException visitException = visit((int) (slotTick & WHEEL_MASK), nowTick);
+
+				if (expireException == null) {
+					expireException = visitException;
+				}
+			}
+			this.currentTick = Math.max(this.currentTick, nowTick);
+		} finally {
+			if (this.scheduledCount > 0 && !this.ticking && !this.display.isDisposed()) {
+				this.ticking = true;
+				this.display.timerExec(TICK_MILLIS, this::tick);
+			}
+		}
+		if (expireException != null) {
+			throw expireException;
+		}
+	}
+
+	@Nullable
+	private RuntimeException visit(int slot, long nowTick) {
+		RuntimeException expireException = null;
+		Timeout timeout = this.slots[slot];
+
+		this.slots[slot] = null;
+		while (timeout != null) {
+			Timeout nextTimeout = timeout.next;
+
+			timeout.next = null;
+			if (timeout.deadlineTick <= nowTick) {
+				timeout.scheduled = false;
+				this.scheduledCount--;
+				try {
+					timeout.expire();
+				} catch (RuntimeException e) {
+					// Expire the remaining timeouts first and re-throw afterwards
+					if (expireException == null) {
+						expireException = e;
+					}
+				}
+			} else {
+				insert(timeout);
+			}
+			timeout = nextTimeout;
+		}
+		return expireException;
+	}
+
+	/**
+	 * Timeout entry managed by the wheel.
+	 */
+	abstract static class Timeout {
+
+		@Nullable
+		Timeout next = null;
+		long deadlineTick = 0;
+		boolean scheduled = false;
+
+		Timeout() {
+			// Nothing to do here
+		}
+
+		abstract void expire();
+
+	}
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.events;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Widget;
+
+/**
+ * Read-only view on a SWT {@linkplain Event}.
+ * <p>
+ * In contrast to the typed events (like {@linkplain org.eclipse.swt.events.SelectionEvent}) an event view is not
+ * created per event but re-bound to every event dispatched to its listener. Hence an event view is only valid during
+ * the invocation of the consuming action and must not be retained afterwards.
+ *
+ * @see EventViewConsumer
+ */
+public final class EventView {
+
+	private Event event;
+
+	EventView(Event event) {
+		this.event = event;
+	}
+
+	Event bind(Event boundEvent) {
+		Event previousEvent = this.event;
+
+		this.event = boundEvent;
+		return previousEvent;
+	}
+
+	/**
+	 * Gets the event type.
+	 *
+	 * @return The event type.
+	 * @see Event#type
+	 */
+	public int getType() {
+		return this.event.type;
+	}
+
+	/**
+	 * Gets the {@linkplain Widget} issuing the event.
+	 *
+	 * @return The {@linkplain Widget} issuing the event.
+	 * @see Event#widget
+	 */
+	public Widget getWidget() {
+		return this.event.widget;
+	}
+
+	/**
+	 * Gets the item the event is related to.
+	 *
+	 * @return The item the event is related to (may be {@code null}).
+	 * @see Event#item
+	 */
+	@Nullable
+	public Widget getItem() {
+		return this.event.item;
+	}
+
+	/**
+	 * Gets the event specific detail field.
+	 *
+	 * @return The event specific detail field.
+	 * @see Event#detail
+	 */
+	public int getDetail() {
+		return this.event.detail;
+	}
+
+	/**
+	 * Gets the event specific index field.
+	 *
+	 * @return The event specific index field.
+	 * @see Event#index
+	 */
+	public int getIndex() {
+		return this.event.index;
+	}
+
+	/**
+	 * Gets the {@linkplain GC} to use for painting.
+	 *
+	 * @return The {@linkplain GC} to use for painting (may be {@code null} if the event is not a paint event).
+	 * @see Event#gc
+	 */
+	@Nullable
+	public GC getGC() {
+		return this.event.gc;
+	}
+
+	/**
+	 * Gets the event's x coordinate.
+	 *
+	 * @return The event's x coordinate.
+	 * @see Event#x
+	 */
+	public int getX() {
+		return this.event.x;
+	}
+
+	/**
+	 * Gets the event's y coordinate.
+	 *
+	 * @return The event's y coordinate.
+	 * @see Event#y
+	 */
+	public int getY() {
+		return this.event.y;
+	}
+
+	/**
+	 * Gets the event's width.
+	 *
+	 * @return The event's width.
+	 * @see Event#width
+	 */
+	public int getWidth() {
+		return this.event.width;
+	}
+
+	/**
+	 * Gets the event's height.
+	 *
+	 * @return The event's height.
+	 * @see Event#height
+	 */
+	public int getHeight() {
+		return this.event.height;
+	}
+
+	/**
+	 * Gets the event specific count field.
+	 *
+	 * @return The event specific count field.
+	 * @see Event#count
+	 */
+	public int getCount() {
+		return this.event.count;
+	}
+
+	/**
+	 * Gets the event's time stamp.
+	 *
+	 * @return The event's time stamp.
+	 * @see Event#time
+	 */
+	public int getTime() {
+		return this.event.time;
+	}
+
+	/**
+	 * Gets the mouse button causing the event.
+	 *
+	 * @return The mouse button causing the event.
+	 * @see Event#button
+	 */
+	public int getButton() {
+		return this.event.button;
+	}
+
+	/**
+	 * Gets the character typed.
+	 *
+	 * @return The character typed.
+	 * @see Event#character
+	 */
+	public char getCharacter() {
+		return this.event.character;
+	}
+
+	/**
+	 * Gets the key code of the key typed.
+	 *
+	 * @return The key code of the key typed.
+	 * @see Event#keyCode
+	 */
+	public int getKeyCode() {
+		return this.event.keyCode;
+	}
+
+	/**
+	 * Gets the location of the key typed.
+	 *
+	 * @return The location of the key typed.
+	 * @see Event#keyLocation
+	 */
+	public int getKeyLocation() {
+		return this.event.keyLocation;
+	}
+
+	/**
+	 * Gets the state of the keyboard modifier keys and mouse buttons.
+	 *
+	 * @return The state of the keyboard modifier keys and mouse buttons.
+	 * @see Event#stateMask
+	 */
+	public int getStateMask() {
+		return this.event.stateMask;
+	}
+
+	/**
+	 * Gets the event specific text field.
+	 *
+	 * @return The event specific text field (may be {@code null}).
+	 * @see Event#text
+	 */
+	@Nullable
+	public String getText() {
+		return this.event.text;
+	}
+
+	/**
+	 * Gets the event's doit flag.
+	 *
+	 * @return The event's doit flag.
+	 * @see Event#doit
+	 */
+	public boolean getDoit() {
+		return this.event.doit;
+	}
+
+	/**
+	 * Sets the event's doit flag.
+	 * <p>
+	 * This is the only event field which may be modified via the view (e.g. to veto a key or traverse event).
+	 *
+	 * @param doit The doit flag to set.
+	 * @see Event#doit
+	 */
+	public void setDoit(boolean doit) {
+		this.event.doit = doit;
+	}
+
+	@Override
+	public String toString() {
+		return this.event.toString();
+	}
+
+}
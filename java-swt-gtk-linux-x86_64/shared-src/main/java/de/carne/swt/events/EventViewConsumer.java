@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.events;
+
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+
+/**
+ * Event listener for mapping a SWT event to a consuming action via a reusable {@linkplain EventView}.
+ * <p>
+ * In contrast to {@linkplain EventConsumer} this listener does not allocate any object per dispatched event, which
+ * makes it suitable for high frequency events like {@linkplain org.eclipse.swt.SWT#MouseMove} or
+ * {@linkplain org.eclipse.swt.SWT#Paint}.
+ * <p>
+ * The typed factory methods only pass the matching event types to the consuming action; events of any other type are
+ * ignored.
+ */
+public class EventViewConsumer implements Listener {
+
+	private final IntPredicate eventTypeFilter;
+	private final Consumer<EventView> consumer;
+	@Nullable
+	private EventView view = null;
+
+	private EventViewConsumer(IntPredicate eventTypeFilter, Consumer<EventView> consumer) {
+		this.eventTypeFilter = eventTypeFilter;
+		this.consumer = consumer;
+	}
+
+	/**
+	 * {@linkplain EventView} listener.
+	 *
+	 * @param consumer The consuming action.
+	 * @return The event listener.
+	 */
+	public static EventViewConsumer any(Consumer<EventView> consumer) {
+		return new EventViewConsumer(eventType -> true, consumer);
+	}
+
+	/**
+	 * {@linkplain SWT#Selection} and {@linkplain SWT#DefaultSelection} {@linkplain EventView} listener.
+	 *
+	 * @param consumer The consuming action.
+	 * @return The event listener.
+	 */
+	public static EventViewConsumer selected(Consumer<EventView> consumer) {
+		return new EventViewConsumer(eventType -> eventType == SWT.Selection || eventType == SWT.DefaultSelection,
+				consumer);
+	}
+
+	/**
+	 * {@linkplain SWT#MouseMove} {@linkplain EventView} listener.
+	 *
+	 * @param consumer The consuming action.
+	 * @return The event listener.
+	 */
+	public static EventViewConsumer mouseMoved(Consumer<EventView> consumer) {
+		return new EventViewConsumer(eventType -> eventType == SWT.MouseMove, consumer);
+	}
+
+	/**
+	 * {@linkplain SWT#Paint} {@linkplain EventView} listener.
+	 *
+	 * @param consumer The consuming action.
+	 * @return The event listener.
+	 */
+	public static EventViewConsumer painted(Consumer<EventView> consumer) {
+		return new EventViewConsumer(eventType -> eventType == SWT.Paint, consumer);
+	}
+
+	/**
+	 * {@linkplain SWT#KeyDown} {@linkplain EventView} listener.
+	 *
+	 * @param consumer The consuming action.
+	 * @return The event listener.
+	 */
+	public static EventViewConsumer keyPressed(Consumer<EventView> consumer) {
+		return new EventViewConsumer(eventType -> eventType == SWT.KeyDown, consumer);
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		if (this.eventTypeFilter.test(event.type)) {
+			dispatch(event);
+		}
+	}
+
+	private void dispatch(Event event) {
+		EventView currentView = this.view;
+
+		if (currentView == null) {
+			currentView = new EventView(event);
+			this.view = currentView;
+		}
+
+		// Events are dispatched on the UI thread only, but may be nested (e.g. if the action causes another event);
+		// hence we restore the previously bound event afterwards
+		Event previousEvent = currentView.bind(event);
+
+		try {
+			this.consumer.accept(currentView);
+		} finally {
+			currentView.bind(previousEvent);
+		}
+	}
+
+}
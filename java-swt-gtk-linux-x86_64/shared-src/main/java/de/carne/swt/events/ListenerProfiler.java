@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.events;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Widget;
+
+import de.carne.swt.util.LatencyHistogram;
+import de.carne.util.logging.Log;
+
+/**
+ * Opt-in profiler for the {@linkplain Listener}s registered via the widget builders (see
+ * {@linkplain de.carne.swt.widgets.WidgetBuilder}).
+ * <p>
+ * If enabled (see {@linkplain #setEnabled(boolean)}), every {@linkplain Listener} registered afterwards is timed and
+ * its latencies are recorded in a {@linkplain LatencyHistogram} keyed by widget type, event type and registration site
+ * (the builder method used to register the {@linkplain Listener} as well as the source location invoking it). Any
+ * invocation exceeding the configured frame budget (see {@linkplain #setFrameBudget(long)}) is logged. Listeners
+ * registered while the profiler is disabled are not wrapped and cause no overhead at all.
+ * <p>
+ * The recorded keys only consist of names and therefore do not retain any widget or handler classes.
+ */
+public final class ListenerProfiler {
+
+	private static final Log LOG = new Log();
+
+	private static final long DEFAULT_FRAME_BUDGET_MILLIS = 16;
+
+	private static final String BUILDER_PACKAGE_PREFIX = "de.carne.swt.widgets.";
+	private static final String BUILDER_CLASS_SUFFIX = "Builder";
+
+	private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+	private static volatile boolean enabled = false;
+	private static volatile long frameBudgetNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_FRAME_BUDGET_MILLIS);
+
+	private static final Map<Key, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+	private ListenerProfiler() {
+		// Prevent instantiation
+	}
+
+	/**
+	 * Enables or disables the profiling of the {@linkplain Listener}s registered from now on.
+	 *
+	 * @param enable whether to enable ({@code true}) or disable ({@code false}) the profiling.
+	 */
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+
+	/**
+	 * Checks whether the profiling is currently enabled.
+	 *
+	 * @return {@code true} if the profiling is currently enabled.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets the frame budget, which causes a {@linkplain Listener} invocation to be logged if exceeded.
+	 *
+	 * @param budgetMillis the frame budget (in milliseconds) to set.
+	 */
+	public static void setFrameBudget(long budgetMillis) {
+		frameBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(budgetMillis, 0));
+	}
+
+	/**
+	 * Gets the frame budget, which causes a {@linkplain Listener} invocation to be logged if exceeded.
+	 *
+	 * @return the frame budget (in milliseconds).
+	 */
+	public static long getFrameBudget() {
+		return TimeUnit.NANOSECONDS.toMillis(frameBudgetNanos);
+	}
+
+	/**
+	 * Gets a snapshot of the recorded latencies.
+	 * <p>
+	 * The returned {@linkplain Map} is sorted by descending total latency.
+	 *
+	 * @return a snapshot of the recorded latencies.
+	 */
+	public static Map<Key, LatencyHistogram> getStatistics() {
+		Map<Key, LatencyHistogram> statistics = new LinkedHashMap<>();
+
+		HISTOGRAMS.entrySet().stream().map(entry -> Map.entry(entry.getKey(), entry.getValue().snapshot()))
+				.sorted(Comparator.comparingLong(entry -> -entry.getValue().getTotal()))
+				.forEachOrdered(entry -> statistics.put(entry.getKey(), entry.getValue()));
+		return statistics;
+	}
+
+	/**
+	 * Resets all recorded latencies.
+	 * <p>
+	 * All recorded keys are discarded. Still registered profiled {@linkplain Listener}s start recording again on their
+	 * next invocation.
+	 */
+	public static void reset() {
+		HISTOGRAMS.clear();
+	}
+
+	/**
+	 * Wraps a {@linkplain Listener} for profiling (if profiling is currently enabled).
+	 *
+	 * @param widget the {@linkplain Widget} the {@linkplain Listener} is registered for.
+	 * @param eventType the event type the {@linkplain Listener} is registered for.
+	 * @param listener the {@linkplain Listener} to wrap.
+	 * @return the wrapped {@linkplain Listener} or the submitted one if profiling is disabled.
+	 */
+	public static Listener wrap(Widget widget, int eventType, Listener listener) {
+		Listener wrapped = listener;
+
+		if (enabled) {
+			Key key = new Key(widget.getClass().getName(), eventType, registrationSite());
+
+			wrapped = new ProfilingListener(key, listener);
+		}
+		return wrapped;
+	}
+
+	private static String registrationSite() {
+		return STACK_WALKER.walk(frames -> {
+			StackWalker.StackFrame builderFrame = null;
+			StackWalker.StackFrame callerFrame = null;
+			Iterator<StackWalker.StackFrame> frameIterator = frames.iterator();
+
+			while (callerFrame == null && frameIterator.hasNext()) {
+				StackWalker.StackFrame frame = frameIterator.next();
+				String className = frame.getClassName();
+
+				if (isBuilderClass(className)) {
+					builderFrame = frame;
+				} else if (!className.equals(ListenerProfiler.class.getName())) {
+					callerFrame = frame;
+				}
+			}
+
+			StringBuilder site = new StringBuilder();
+
+			if (builderFrame != null) {
+				String builderClassName = builderFrame.getClassName();
+
+				site.append(builderClassName.substring(builderClassName.lastIndexOf('.') + 1)).append('.')
+						.append(builderFrame.getMethodName());
+			}
+			if (callerFrame != null) {
+				if (site.length() > 0) {
+					site.append(' ');
+				}
+				site.append('(').append(callerFrame.getFileName()).append(':').append(callerFrame.getLineNumber())
+						.append(')');
+			}
+			return site.toString();
+		});
+	}
+
+	private static boolean isBuilderClass(String className) {
+		return className.startsWith(BUILDER_PACKAGE_PREFIX) && className.endsWith(BUILDER_CLASS_SUFFIX);
+	}
+
+	/**
+	 * Key identifying the recorded latencies of a profiled {@linkplain Listener}.
+	 */
+	public static final class Key {
+
+		private final String widgetTypeName;
+		private final int eventType;
+		private final String registrationSite;
+
+		Key(String widgetTypeName, int eventType, String registrationSite) {
+			this.widgetTypeName = widgetTypeName;
+			this.eventType = eventType;
+			this.registrationSite = registrationSite;
+		}
+
+		/**
+		 * Gets the type name of the {@linkplain Widget} the {@linkplain Listener} is registered for.
+		 *
+		 * @return the type name of the {@linkplain Widget} the {@linkplain Listener} is registered for.
+		 */
+		public String getWidgetTypeName() {
+			return this.widgetTypeName;
+		}
+
+		/**
+		 * Gets the event type the {@linkplain Listener} is registered for.
+		 *
+		 * @return the event type the {@linkplain Listener} is registered for.
+		 */
+		public int getEventType() {
+			return this.eventType;
+		}
+
+		/**
+		 * Gets the site the {@linkplain Listener} has been registered from.
+		 * <p>
+		 * The registration site consists of the builder method used for registration followed by the source location
+		 * invoking it (e.g. {@code "ShellBuilder.onEvent (MyUI.java:42)"}).
+		 *
+		 * @return the site the {@linkplain Listener} has been registered from.
+		 */
+		public String getRegistrationSite() {
+			return this.registrationSite;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.widgetTypeName, this.eventType, this.registrationSite);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			boolean equal = this == obj;
+
+			if (!equal && obj instanceof Key) {
+				Key other = (Key) obj;
+
+				equal = this.widgetTypeName.equals(other.widgetTypeName) && this.eventType == other.eventType
+						&& this.registrationSite.equals(other.registrationSite);
+			}
+			return equal;
+		}
+
+		@Override
+		public String toString() {
+			return this.widgetTypeName.substring(this.widgetTypeName.lastIndexOf('.') + 1) + "[" + this.eventType + "]: "
+					+ this.registrationSite;
+		}
+
+	}
+
+	private static final class ProfilingListener implements Listener {
+
+		private final Key key;
+		private final Listener listener;
+
+		ProfilingListener(Key key, Listener listener) {
+			this.key = key;
+			this.listener = listener;
+		}
+
+		@Override
+		public void handleEvent(Event event) {
+			long start = System.nanoTime();
+
+			try {
+				this.listener.handleEvent(event);
+			} finally {
+				long latency = System.nanoTime() - start;
+
+				HISTOGRAMS.computeIfAbsent(this.key, k -> new LatencyHistogram()).record(latency);
+				if (latency > frameBudgetNanos) {
+					LOG.warning("Listener {0} exceeded frame budget: {1} ms (budget: {2} ms)", this.key,
+							TimeUnit.NANOSECONDS.toMillis(latency), getFrameBudget());
+				}
+			}
+		}
+
+	}
+
+}
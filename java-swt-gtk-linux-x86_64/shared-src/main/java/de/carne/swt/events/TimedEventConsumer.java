@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.events;
+
+import java.util.function.Consumer;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+
+/**
+ * Event listener for mapping a SWT event to a debounced or throttled consuming action.
+ * <p>
+ * The delayed actions of all timed listeners of a {@linkplain org.eclipse.swt.widgets.Display} are scheduled via a
+ * single shared timer (instead of one {@linkplain org.eclipse.swt.widgets.Display#timerExec(int, Runnable)} call per
+ * event), which has a resolution of 10 ms. As the delivery is deferred, the same restrictions as for
+ * {@linkplain CoalescedEventConsumer} apply.
+ */
+public class TimedEventConsumer implements Listener {
+
+	private final Consumer<Event> consumer;
+	private final long delayMillis;
+	private final boolean throttle;
+	private final Timeout timeout = new Timeout();
+	@Nullable
+	private Event pendingEvent = null;
+
+	private TimedEventConsumer(Consumer<Event> consumer, long delayMillis, boolean throttle) {
+		this.consumer = consumer;
+		this.delayMillis = delayMillis;
+		this.throttle = throttle;
+	}
+
+	/**
+	 * Debouncing {@linkplain Event} listener.
+	 * <p>
+	 * The consuming action is invoked with the latest event as soon as no further event has been received for the given
+	 * delay.
+	 *
+	 * @param delayMillis The delay (in milliseconds) to wait for further events.
+	 * @param consumer The consuming action.
+	 * @return The event listener.
+	 */
+	public static TimedEventConsumer debounced(long delayMillis, Consumer<Event> consumer) {
+		return new TimedEventConsumer(consumer, delayMillis, false);
+	}
+
+	/**
+	 * Throttling {@linkplain Event} listener.
+	 * <p>
+	 * The consuming action is invoked immediately for the first event and at most once per the given interval
+	 * afterwards (with the latest event received during the interval).
+	 *
+	 * @param intervalMillis The minimum interval (in milliseconds) between two invocations.
+	 * @param consumer The consuming action.
+	 * @return The event listener.
+	 */
+	public static TimedEventConsumer throttled(long intervalMillis, Consumer<Event> consumer) {
+		return new TimedEventConsumer(consumer, intervalMillis, true);
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		EventTimerWheel wheel = EventTimerWheel.get(event.widget.getDisplay());
+
+		if (!this.throttle) {
+			this.pendingEvent = event;
+			wheel.schedule(this.timeout, this.delayMillis);
+		} else if (this.timeout.scheduled) {
+			this.pendingEvent = event;
+		} else {
+			wheel.schedule(this.timeout, this.delayMillis);
+			this.consumer.accept(event);
+		}
+	}
+
+	private void expire() {
+		Event event = this.pendingEvent;
+
+		this.pendingEvent = null;
+		if (event != null && !event.widget.isDisposed()) {
+			if (this.throttle) {
+				// Start the next interval
+				EventTimerWheel.get(event.widget.getDisplay()).schedule(this.timeout, this.delayMillis);
+			}
+			this.consumer.accept(event);
+		}
+	}
+
+	private class Timeout extends EventTimerWheel.Timeout {
+
+		Timeout() {
+			// Nothing to do here
+		}
+
+		@Override
+		void expire() {
+			TimedEventConsumer.this.expire();
+		}
+
+	}
+
+}
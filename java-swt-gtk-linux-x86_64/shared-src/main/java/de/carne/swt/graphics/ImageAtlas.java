@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Device;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageDataProvider;
+import org.eclipse.swt.graphics.Rectangle;
+
+/**
+ * Image atlas (also known as sprite sheet) combining multiple icons in a single image.
+ * <p>
+ * The atlas consists of the atlas image and an index mapping every icon name to its bounds within the atlas image. The
+ * bounds are defined for the standard (100%) zoom level and are scaled accordingly for scaled variants of the atlas
+ * image (e.g. {@code atlas@2x.png}). The atlas image is decoded only once per zoom level and shared by all icons
+ * sliced from it.
+ *
+ * @see ResourceTracker#getImage(ImageAtlas, String)
+ */
+public final class ImageAtlas {
+
+	private static final String INDEX_EXTENSION = ".properties";
+
+	private final URL imageUrl;
+	private final ImageKey imageKey;
+	private final Map<String, Rectangle> index;
+
+	/**
+	 * Constructs a new {@linkplain ImageAtlas} instance.
+	 *
+	 * @param imageUrl the {@linkplain URL} of the atlas image.
+	 * @param index the atlas index mapping every icon name to its bounds within the atlas image.
+	 */
+	public ImageAtlas(URL imageUrl, Map<String, Rectangle> index) {
+		this.imageUrl = imageUrl;
+		this.imageKey = ImageKey.of(imageUrl);
+		this.index = Collections.unmodifiableMap(new LinkedHashMap<>(index));
+	}
+
+	/**
+	 * Loads an {@linkplain ImageAtlas} from the class path.
+	 * <p>
+	 * The atlas index is read from the properties resource having the same base name as the atlas image (e.g.
+	 * {@code icons.properties} for atlas image {@code icons.png}). Every property defines the bounds of a single icon
+	 * in the form {@code <name>=<x>,<y>,<width>,<height>}.
+	 *
+	 * @param clazz the {@linkplain Class} to use for resource access.
+	 * @param imageName the name of the atlas image resource.
+	 * @return the loaded {@linkplain ImageAtlas}.
+	 * @throws UnknownResourceException if the atlas image or index resource does not exist.
+	 * @throws ResourceException if the atlas index cannot be read.
+	 */
+	public static ImageAtlas load(Class<?> clazz, String imageName) throws ResourceException {
+		int extensionIndex = imageName.lastIndexOf('.');
+		String indexName = (extensionIndex > 0 ? imageName.substring(0, extensionIndex) : imageName)
+				+ INDEX_EXTENSION;
+		URL imageUrl = clazz.getResource(imageName);
+		URL indexUrl = clazz.getResource(indexName);
+
+		if (imageUrl == null) {
+			throw new UnknownResourceException("Unknown atlas image resource: " + clazz.getName() + ":" + imageName);
+		}
+		if (indexUrl == null) {
+			throw new UnknownResourceException("Unknown atlas index resource: " + clazz.getName() + ":" + indexName);
+		}
+		return new ImageAtlas(imageUrl, loadIndex(indexUrl));
+	}
+
+	private static Map<String, Rectangle> loadIndex(URL indexUrl) throws ResourceException {
+		Properties indexProperties = new Properties();
+
+		try (InputStream indexStream = indexUrl.openStream()) {
+			indexProperties.load(indexStream);
+		} catch (IOException e) {
+			throw new ResourceException("Failed to read atlas index: " + indexUrl, e);
+		}
+
+		Map<String, Rectangle> index = new LinkedHashMap<>();
+
+		for (String name : indexProperties.stringPropertyNames()) {
+			String[] bounds = indexProperties.getProperty(name).split(",");
+
+			try {
+				if (bounds.length != 4) {
+					throw new IllegalArgumentException("Unexpected bounds count: " + bounds.length);
+				}
+				index.put(name, new Rectangle(Integer.parseInt(bounds[0].trim()), Integer.parseInt(bounds[1].trim()),
+						Integer.parseInt(bounds[2].trim()), Integer.parseInt(bounds[3].trim())));
+			} catch (IllegalArgumentException e) {
+				throw new ResourceException("Invalid atlas index entry '" + name + "' in: " + indexUrl, e);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the {@linkplain URL} of the atlas image.
+	 *
+	 * @return the {@linkplain URL} of the atlas image.
+	 */
+	public URL getImageUrl() {
+		return this.imageUrl;
+	}
+
+	/**
+	 * Gets the names of the icons contained in this atlas.
+	 *
+	 * @return the names of the icons contained in this atlas.
+	 */
+	public Set<String> getNames() {
+		return this.index.keySet();
+	}
+
+	/**
+	 * Gets the bounds of an icon within the atlas image (at the standard zoom level).
+	 *
+	 * @param name the name of the icon to get the bounds for.
+	 * @return the bounds of the requested icon or {@code null} if the icon is not part of this atlas.
+	 */
+	@Nullable
+	public Rectangle getBounds(String name) {
+		Rectangle bounds = this.index.get(name);
+
+		return (bounds != null ? new Rectangle(bounds.x, bounds.y, bounds.width, bounds.height) : null);
+	}
+
+	ImageKey imageKey() {
+		return this.imageKey;
+	}
+
+	boolean contains(String name) {
+		return this.index.containsKey(name);
+	}
+
+	void prepare(ScaledImageResourceProvider.Store imageStore) {
+		imageStore.forKey(this.imageKey).prepareSharedImageData();
+	}
+
+	Image createImage(Device device, ScaledImageResourceProvider.Store imageStore, String name) {
+		Rectangle bounds = this.index.get(name);
+
+		if (bounds == null) {
+			throw new IllegalArgumentException("Unknown atlas icon: " + this.imageUrl + ":" + name);
+		}
+		return new Image(device, new IconImageDataProvider(imageStore.forKey(this.imageKey), bounds));
+	}
+
+	static ImageData slice(ImageData imageData, Rectangle bounds) {
+		int width = Math.min(bounds.width, imageData.width - bounds.x);
+		int height = Math.min(bounds.height, imageData.height - bounds.y);
+
+		if (bounds.x < 0 || bounds.y < 0 || width <= 0 || height <= 0) {
+			SWT.error(SWT.ERROR_INVALID_ARGUMENT, null, " (icon bounds exceed atlas image)");
+		}
+
+		ImageData slice = new ImageData(width, height, imageData.depth, imageData.palette);
+		int transparencyType = imageData.getTransparencyType();
+		ImageData transparencyMask = (transparencyType == SWT.TRANSPARENCY_MASK ? imageData.getTransparencyMask()
+				: null);
+		int[] pixelRow = new int[width];
+		byte[] alphaRow = (imageData.alphaData != null || transparencyMask != null ? new byte[width] : null);
+
+		if (alphaRow != null) {
+			slice.alphaData = new byte[width * height];
+		}
+		for (int y = 0; y < height; y++) {
+			imageData.getPixels(bounds.x, bounds.y + y, width, pixelRow, 0);
+			slice.setPixels(0, y, width, pixelRow, 0);
+			if (alphaRow != null) {
+				if (transparencyMask != null) {
+					transparencyMask.getPixels(bounds.x, bounds.y + y, width, pixelRow, 0);
+					for (int x = 0; x < width; x++) {
+						alphaRow[x] = (byte) (pixelRow[x] != 0 ? 0xff : 0x00);
+					}
+				} else {
+					imageData.getAlphas(bounds.x, bounds.y + y, width, alphaRow, 0);
+				}
+				slice.setAlphas(0, y, width, alphaRow, 0);
+			}
+		}
+		slice.transparentPixel = imageData.transparentPixel;
+		slice.alpha = imageData.alpha;
+		return slice;
+	}
+
+	private static class IconImageDataProvider implements ImageDataProvider {
+
+		private final ScaledImageResourceProvider atlasImageProvider;
+		private final Rectangle bounds;
+
+		IconImageDataProvider(ScaledImageResourceProvider atlasImageProvider, Rectangle bounds) {
+			this.atlasImageProvider = atlasImageProvider;
+			this.bounds = bounds;
+		}
+
+		@Override
+		@Nullable
+		public ImageData getImageData(int zoom) {
+			Rectangle scaledBounds = new Rectangle(scale(this.bounds.x, zoom), scale(this.bounds.y, zoom),
+					scale(this.bounds.width, zoom), scale(this.bounds.height, zoom));
+
+			this.atlasImageProvider.recordRequestedZoom(zoom);
+			return this.atlasImageProvider.deriveImageData(zoom, atlasImageData -> slice(atlasImageData, scaledBounds));
+		}
+
+		private static int scale(int value, int zoom) {
+			return Math.round(value * zoom / 100.0f);
+		}
+
+	}
+
+}
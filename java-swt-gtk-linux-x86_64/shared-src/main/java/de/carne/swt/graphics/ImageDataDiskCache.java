@@ -0,0 +1,490 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+
+import de.carne.util.Exceptions;
+import de.carne.util.logging.Log;
+
+/**
+ * Persistent cache for decoded {@linkplain ImageData}.
+ * <p>
+ * Every entry is stored in a separate file named after the hash of the image {@linkplain URL}, the image resource's
+ * timestamp and size as well as the zoom level. The pixel data is stored in raw form, so a cache hit only requires to
+ * map the file and copy out the pixel arrays. Entries which cannot be read for whatever reason are discarded.
+ * <p>
+ * The timestamp and size of {@code file:} resources are checked on every lookup. For all other resources (like
+ * {@code jar:} resources) they are determined only once per process. The total size of the cache is limited and the
+ * least recently used entries (including the ones of changed resources, which are never used again) are deleted
+ * whenever the limit is exceeded.
+ */
+final class ImageDataDiskCache {
+
+	private static final Log LOG = new Log();
+
+	private static final int MAGIC = 0x53574944;
+	private static final int VERSION = 1;
+	private static final String ENTRY_SUFFIX = ".imagedata";
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+	private static final int MAX_RESOURCE_INFOS = 1024;
+
+	// The resource infos of all non file resources (determined only once as they require a connection)
+	private static final Map<String, long[]> RESOURCE_INFOS = new LinkedHashMap<String, long[]>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+			return size() > MAX_RESOURCE_INFOS;
+		}
+
+	};
+
+	@Nullable
+	private static volatile Path cacheDirectory = null;
+	private static volatile long cacheMaxSize = DEFAULT_MAX_SIZE;
+	private static final AtomicLong CACHE_SIZE = new AtomicLong();
+
+	private ImageDataDiskCache() {
+		// Prevent instantiation
+	}
+
+	static synchronized void setDirectory(@Nullable Path directory, long maxSize) throws IOException {
+		if (maxSize < 0) {
+			throw new IllegalArgumentException("Invalid maximum size: " + maxSize);
+		}
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		cacheDirectory = directory;
+		cacheMaxSize = maxSize;
+		if (directory != null) {
+			sweep(directory);
+		}
+	}
+
+	@Nullable
+	static Path getDirectory() {
+		return cacheDirectory;
+	}
+
+	static long getMaxSize() {
+		return cacheMaxSize;
+	}
+
+	@Nullable
+	static Path entryFile(URL url, int zoom) {
+		Path directory = cacheDirectory;
+		Path entryFile = null;
+
+		if (directory != null) {
+			String urlString = url.toExternalForm();
+			long[] resourceInfo = resourceInfo(url, urlString);
+
+			// Resources without a known size are not cached (e.g. because they do not exist)
+			if (resourceInfo[1] >= 0) {
+				entryFile = directory.resolve(
+						entryKey(urlString + "|" + resourceInfo[0] + "|" + resourceInfo[1] + "|" + zoom) + ENTRY_SUFFIX);
+			}
+		}
+		return entryFile;
+	}
+
+	@Nullable
+	static ImageData get(@Nullable Path entryFile) {
+		ImageData imageData = null;
+
+		if (entryFile != null && Files.exists(entryFile)) {
+			try (FileChannel entryChannel = FileChannel.open(entryFile, StandardOpenOption.READ)) {
+				imageData = readEntry(entryChannel.map(FileChannel.MapMode.READ_ONLY, 0, entryChannel.size()));
+			} catch (IOException | RuntimeException e) {
+				// Whatever went wrong (I/O error, truncated or corrupt entry), the entry is simply discarded
+				Exceptions.ignore(e);
+			}
+			if (imageData != null) {
+				touchEntry(entryFile);
+			} else {
+				LOG.debug("Discarding invalid image data cache entry ''{0}''", entryFile);
+				deleteEntry(entryFile);
+			}
+		}
+		return imageData;
+	}
+
+	static void put(@Nullable Path entryFile, ImageData imageData) {
+		if (entryFile != null) {
+			Path tempEntryFile = entryFile
+					.resolveSibling(entryFile.getFileName() + ".tmp" + Thread.currentThread().getId());
+
+			try {
+				try (DataOutputStream entryStream = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(tempEntryFile)))) {
+					writeEntry(entryStream, imageData);
+				}
+				long entrySize = Files.size(tempEntryFile);
+
+				try {
+					Files.move(tempEntryFile, entryFile, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Exceptions.ignore(e);
+					Files.move(tempEntryFile, entryFile, StandardCopyOption.REPLACE_EXISTING);
+				}
+				if (CACHE_SIZE.addAndGet(entrySize) > cacheMaxSize) {
+					sweep(entryFile.getParent());
+				}
+			} catch (IOException e) {
+				LOG.warning(e, "Failed to write image data cache entry ''{0}''", entryFile);
+				deleteEntry(tempEntryFile);
+			}
+		}
+	}
+
+	private static long[] resourceInfo(URL url, String urlString) {
+		long[] resourceInfo;
+
+		if ("file".equals(url.getProtocol())) {
+			resourceInfo = fileResourceInfo(url);
+		} else {
+			synchronized (RESOURCE_INFOS) {
+				resourceInfo = RESOURCE_INFOS.get(urlString);
+			}
+			if (resourceInfo == null) {
+				resourceInfo = connectionResourceInfo(url);
+				synchronized (RESOURCE_INFOS) {
+					RESOURCE_INFOS.put(urlString, resourceInfo);
+				}
+			}
+		}
+		return resourceInfo;
+	}
+
+	private static long[] fileResourceInfo(URL url) {
+		long lastModified = 0;
+		long size = -1;
+
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(Paths.get(url.toURI()), BasicFileAttributes.class);
+
+			lastModified = attributes.lastModifiedTime().toMillis();
+			size = attributes.size();
+		} catch (IOException | URISyntaxException | IllegalArgumentException e) {
+			Exceptions.ignore(e);
+		}
+		return new long[] { lastModified, size };
+	}
+
+	private static long[] connectionResourceInfo(URL url) {
+		long lastModified = 0;
+		long size = -1;
+		URLConnection connection = null;
+
+		try {
+			connection = url.openConnection();
+			if (connection instanceof JarURLConnection) {
+				// Use the entry's metadata from the jar directory (without opening the entry itself)
+				JarEntry jarEntry = ((JarURLConnection) connection).getJarEntry();
+
+				if (jarEntry != null) {
+					lastModified = jarEntry.getTime();
+					size = jarEntry.getSize();
+				}
+			} else {
+				lastModified = connection.getLastModified();
+				size = connection.getContentLengthLong();
+			}
+		} catch (IOException e) {
+			Exceptions.ignore(e);
+		} finally {
+			if (connection != null) {
+				releaseConnection(connection);
+			}
+		}
+		return new long[] { lastModified, size };
+	}
+
+	private static void releaseConnection(URLConnection connection) {
+		try {
+			if (connection instanceof HttpURLConnection) {
+				((HttpURLConnection) connection).disconnect();
+			} else if (connection instanceof JarURLConnection) {
+				// Cached jar files are shared and must stay open
+				if (!connection.getUseCaches()) {
+					((JarURLConnection) connection).getJarFile().close();
+				}
+			} else {
+				// Other connections may have opened their input stream while connecting
+				connection.getInputStream().close();
+			}
+		} catch (IOException e) {
+			Exceptions.ignore(e);
+		}
+	}
+
+	private static String entryKey(String key) {
+		byte[] hash;
+
+		try {
+			hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw Exceptions.toRuntime(e);
+		}
+
+		StringBuilder entryKey = new StringBuilder(hash.length * 2);
+
+		for (byte hashByte : hash) {
+			entryKey.append(HEX_DIGITS[(hashByte >> 4) & 0xf]).append(HEX_DIGITS[hashByte & 0xf]);
+		}
+		return entryKey.toString();
+	}
+
+	private static void writeEntry(DataOutputStream entryStream, ImageData imageData) throws IOException {
+		PaletteData palette = imageData.palette;
+
+		entryStream.writeInt(MAGIC);
+		entryStream.writeInt(VERSION);
+		entryStream.writeInt(imageData.width);
+		entryStream.writeInt(imageData.height);
+		entryStream.writeInt(imageData.depth);
+		entryStream.writeInt(imageData.scanlinePad);
+		entryStream.writeInt(imageData.bytesPerLine);
+		entryStream.writeInt(imageData.transparentPixel);
+		entryStream.writeInt(imageData.maskPad);
+		entryStream.writeInt(imageData.alpha);
+		entryStream.writeBoolean(palette.isDirect);
+		if (palette.isDirect) {
+			entryStream.writeInt(palette.redMask);
+			entryStream.writeInt(palette.greenMask);
+			entryStream.writeInt(palette.blueMask);
+		} else {
+			entryStream.writeInt(palette.colors.length);
+			for (RGB color : palette.colors) {
+				entryStream.writeByte(color.red);
+				entryStream.writeByte(color.green);
+				entryStream.writeByte(color.blue);
+			}
+		}
+		writeBytes(entryStream, imageData.data);
+		writeBytes(entryStream, imageData.maskData);
+		writeBytes(entryStream, imageData.alphaData);
+	}
+
+	private static void writeBytes(DataOutputStream entryStream, byte @Nullable [] bytes) throws IOException {
+		if (bytes != null) {
+			entryStream.writeInt(bytes.length);
+			entryStream.write(bytes);
+		} else {
+			entryStream.writeInt(-1);
+		}
+	}
+
+	@Nullable
+	private static ImageData readEntry(ByteBuffer entryBuffer) {
+		ImageData imageData = null;
+
+		if (entryBuffer.getInt() == MAGIC && entryBuffer.getInt() == VERSION) {
+			int width = entryBuffer.getInt();
+			int height = entryBuffer.getInt();
+			int depth = entryBuffer.getInt();
+			int scanlinePad = entryBuffer.getInt();
+			int bytesPerLine = entryBuffer.getInt();
+			int transparentPixel = entryBuffer.getInt();
+			int maskPad = entryBuffer.getInt();
+			int alpha = entryBuffer.getInt();
+			PaletteData palette = readPalette(entryBuffer);
+			byte[] data = readBytes(entryBuffer);
+
+			if (data != null) {
+				imageData = new ImageData(width, height, depth, palette, scanlinePad, data);
+				imageData.transparentPixel = transparentPixel;
+				imageData.maskPad = maskPad;
+				imageData.maskData = readBytes(entryBuffer);
+				imageData.alpha = alpha;
+				imageData.alphaData = readBytes(entryBuffer);
+				if (imageData.bytesPerLine != bytesPerLine) {
+					imageData = null;
+				}
+			}
+		}
+		return imageData;
+	}
+
+	private static PaletteData readPalette(ByteBuffer entryBuffer) {
+		PaletteData palette;
+
+		if (entryBuffer.get() != 0) {
+			palette = new PaletteData(entryBuffer.getInt(), entryBuffer.getInt(), entryBuffer.getInt());
+		} else {
+			RGB[] colors = new RGB[checkLength(entryBuffer, entryBuffer.getInt(), 3)];
+
+			for (int colorIndex = 0; colorIndex < colors.length; colorIndex++) {
+				colors[colorIndex] = new RGB(entryBuffer.get() & 0xff, entryBuffer.get() & 0xff,
+						entryBuffer.get() & 0xff);
+			}
+			palette = new PaletteData(colors);
+		}
+		return palette;
+	}
+
+	private static byte @Nullable [] readBytes(ByteBuffer entryBuffer) {
+		int length = entryBuffer.getInt();
+		byte[] bytes = null;
+
+		if (length != -1) {
+			bytes = new byte[checkLength(entryBuffer, length, 1)];
+			entryBuffer.get(bytes);
+		}
+		return bytes;
+	}
+
+	private static int checkLength(ByteBuffer entryBuffer, int length, int elementSize) {
+		// Never trust the stored length to avoid excessive allocations for corrupt entries
+		if (length < 0 || length > entryBuffer.remaining() / elementSize) {
+			throw new IllegalArgumentException("Invalid length: " + length);
+		}
+		return length;
+	}
+
+	private static synchronized void sweep(Path directory) {
+		List<EntryFile> entryFiles = new ArrayList<>();
+		long size = 0;
+
+		try (Stream<Path> files = Files.list(directory)) {
+			Iterator<Path> fileIterator = files.iterator();
+
+			while (fileIterator.hasNext()) {
+				Path file = fileIterator.next();
+
+				if (file.getFileName().toString().endsWith(ENTRY_SUFFIX)) {
+					try {
+						EntryFile entryFile = new EntryFile(file);
+
+						entryFiles.add(entryFile);
+						size += entryFile.size();
+					} catch (IOException e) {
+						// Entry has been deleted concurrently
+						Exceptions.ignore(e);
+					}
+				}
+			}
+		} catch (IOException | UncheckedIOException e) {
+			LOG.warning(e, "Failed to scan image data cache directory ''{0}''", directory);
+		}
+
+		long maxSize = cacheMaxSize;
+
+		if (size > maxSize) {
+			// Delete the least recently used entries until there is room for new ones
+			long targetSize = maxSize - maxSize / 4;
+			int deleteCount = 0;
+
+			entryFiles.sort(Comparator.comparingLong(EntryFile::lastModified));
+			for (EntryFile entryFile : entryFiles) {
+				if (size > targetSize) {
+					deleteEntry(entryFile.file());
+					size -= entryFile.size();
+					deleteCount++;
+				}
+			}
+			LOG.debug("Deleted {0} image data cache entries from ''{1}''", deleteCount, directory);
+		}
+		CACHE_SIZE.set(size);
+	}
+
+	private static void touchEntry(Path entryFile) {
+		try {
+			Files.setLastModifiedTime(entryFile, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			Exceptions.ignore(e);
+		}
+	}
+
+	private static void deleteEntry(Path entryFile) {
+		try {
+			Files.deleteIfExists(entryFile);
+		} catch (IOException e) {
+			Exceptions.ignore(e);
+		}
+	}
+
+	private static final class EntryFile {
+
+		private final Path file;
+		private final long size;
+		private final long lastModified;
+
+		EntryFile(Path file) throws IOException {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+			this.file = file;
+			this.size = attributes.size();
+			this.lastModified = attributes.lastModifiedTime().toMillis();
+		}
+
+		Path file() {
+			return this.file;
+		}
+
+		long size() {
+			return this.size;
+		}
+
+		long lastModified() {
+			return this.lastModified;
+		}
+
+	}
+
+}
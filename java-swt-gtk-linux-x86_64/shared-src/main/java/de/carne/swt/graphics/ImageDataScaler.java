@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+
+/**
+ * High quality {@linkplain ImageData} scaling.
+ * <p>
+ * Downscaling is performed by area averaging, upscaling by bilinear interpolation. Both are applied separately for
+ * each axis on premultiplied ARGB pixels, so transparent pixels do not bleed into the result. The scaled image data is
+ * always returned as 24 bit direct color image data with an alpha channel.
+ */
+final class ImageDataScaler {
+
+	private static final PaletteData DIRECT_PALETTE = new PaletteData(0xff0000, 0x00ff00, 0x0000ff);
+
+	private ImageDataScaler() {
+		// Prevent instantiation
+	}
+
+	static ImageData scale(ImageData source, int width, int height) {
+		int sourceWidth = source.width;
+		int sourceHeight = source.height;
+		float[] sourcePixels = toPremultipliedArgb(source);
+		Contributions xContributions = new Contributions(sourceWidth, width);
+		Contributions yContributions = new Contributions(sourceHeight, height);
+
+		// Horizontal pass
+		float[] rowScaledPixels = new float[width * sourceHeight * 4];
+
+		for (int y = 0; y < sourceHeight; y++) {
+			int sourceRowOffset = y * sourceWidth * 4;
+			int targetRowOffset = y * width * 4;
+
+			for (int x = 0; x < width; x++) {
+				xContributions.apply(x, sourcePixels, sourceRowOffset, 4, rowScaledPixels, targetRowOffset + x * 4);
+			}
+		}
+
+		// Vertical pass
+		float[] scaledPixels = new float[width * height * 4];
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				yContributions.apply(y, rowScaledPixels, x * 4, width * 4, scaledPixels, (y * width + x) * 4);
+			}
+		}
+		return fromPremultipliedArgb(scaledPixels, width, height);
+	}
+
+	private static float[] toPremultipliedArgb(ImageData imageData) {
+		int width = imageData.width;
+		int height = imageData.height;
+		PixelPalette palette = new PixelPalette(imageData.palette);
+		int transparencyType = imageData.getTransparencyType();
+		ImageData transparencyMask = (transparencyType == SWT.TRANSPARENCY_MASK
+				|| transparencyType == SWT.TRANSPARENCY_PIXEL ? imageData.getTransparencyMask() : null);
+		int[] pixelRow = new int[width];
+		int[] maskRow = new int[width];
+		byte[] alphaRow = new byte[width];
+		float[] argbPixels = new float[width * height * 4];
+
+		for (int y = 0; y < height; y++) {
+			imageData.getPixels(0, y, width, pixelRow, 0);
+			if (transparencyMask != null) {
+				transparencyMask.getPixels(0, y, width, maskRow, 0);
+			} else if (imageData.alphaData != null) {
+				imageData.getAlphas(0, y, width, alphaRow, 0);
+			}
+			for (int x = 0; x < width; x++) {
+				int rgb = palette.rgb(pixelRow[x]);
+				int alpha;
+
+				if (transparencyMask != null) {
+					alpha = (maskRow[x] != 0 ? 255 : 0);
+				} else if (imageData.alphaData != null) {
+					alpha = alphaRow[x] & 0xff;
+				} else if (imageData.alpha >= 0) {
+					alpha = imageData.alpha;
+				} else {
+					alpha = 255;
+				}
+
+				float alphaFactor = alpha / 255.0f;
+				int pixelOffset = (y * width + x) * 4;
+
+				argbPixels[pixelOffset] = alpha;
+				argbPixels[pixelOffset + 1] = ((rgb >> 16) & 0xff) * alphaFactor;
+				argbPixels[pixelOffset + 2] = ((rgb >> 8) & 0xff) * alphaFactor;
+				argbPixels[pixelOffset + 3] = (rgb & 0xff) * alphaFactor;
+			}
+		}
+		return argbPixels;
+	}
+
+	private static ImageData fromPremultipliedArgb(float[] argbPixels, int width, int height) {
+		ImageData imageData = new ImageData(width, height, 24, DIRECT_PALETTE);
+		int[] pixelRow = new int[width];
+		byte[] alphaData = new byte[width * height];
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int pixelOffset = (y * width + x) * 4;
+				int alpha = clamp(argbPixels[pixelOffset]);
+				int pixel = 0;
+
+				if (alpha > 0) {
+					// Un-premultiply with the exact (unrounded) alpha to keep the colors of partially transparent pixels
+					float alphaFactor = 255.0f / argbPixels[pixelOffset];
+
+					pixel = (clamp(argbPixels[pixelOffset + 1] * alphaFactor) << 16)
+							| (clamp(argbPixels[pixelOffset + 2] * alphaFactor) << 8)
+							| clamp(argbPixels[pixelOffset + 3] * alphaFactor);
+				}
+				pixelRow[x] = pixel;
+				alphaData[y * width + x] = (byte) alpha;
+			}
+			imageData.setPixels(0, y, width, pixelRow, 0);
+		}
+		imageData.alphaData = alphaData;
+		return imageData;
+	}
+
+	private static int clamp(float value) {
+		return Math.max(0, Math.min(255, Math.round(value)));
+	}
+
+	/**
+	 * The source pixel weights contributing to every target pixel along a single axis.
+	 */
+	private static final class Contributions {
+
+		private final int[] first;
+		private final float[][] weights;
+
+		Contributions(int sourceLength, int targetLength) {
+			this.first = new int[targetLength];
+			this.weights = new float[targetLength][];
+
+			double scale = (double) sourceLength / targetLength;
+
+			for (int target = 0; target < targetLength; target++) {
+				if (scale > 1.0) {
+					initAreaAverage(target, scale, sourceLength);
+				} else {
+					initBilinear(target, scale, sourceLength);
+				}
+			}
+		}
+
+		private void initAreaAverage(int target, double scale, int sourceLength) {
+			double start = target * scale;
+			double end = Math.min(start + scale, sourceLength);
+			int firstSource = (int) Math.floor(start);
+			int lastSource = Math.min((int) Math.ceil(end), sourceLength) - 1;
+			float[] targetWeights = new float[lastSource - firstSource + 1];
+			double coverage = end - start;
+
+			for (int source = firstSource; source <= lastSource; source++) {
+				double overlap = Math.min(end, source + 1.0) - Math.max(start, source);
+
+				targetWeights[source - firstSource] = (float) (overlap / coverage);
+			}
+			this.first[target] = firstSource;
+			this.weights[target] = targetWeights;
+		}
+
+		private void initBilinear(int target, double scale, int sourceLength) {
+			double center = Math.max((target + 0.5) * scale - 0.5, 0.0);
+			int firstSource = Math.min((int) Math.floor(center), sourceLength - 1);
+			float fraction = (float) (center - firstSource);
+
+			if (firstSource + 1 < sourceLength && fraction > 0.0f) {
+				this.weights[target] = new float[] { 1.0f - fraction, fraction };
+			} else {
+				this.weights[target] = new float[] { 1.0f };
+			}
+			this.first[target] = firstSource;
+		}
+
+		void apply(int target, float[] source, int sourceOffset, int sourceStride, float[] result, int resultOffset) {
+			float[] targetWeights = this.weights[target];
+			int pixelOffset = sourceOffset + this.first[target] * sourceStride;
+			float a = 0.0f;
+			float r = 0.0f;
+			float g = 0.0f;
+			float b = 0.0f;
+
+			for (float weight : targetWeights) {
+				a += source[pixelOffset] * weight;
+				r += source[pixelOffset + 1] * weight;
+				g += source[pixelOffset + 2] * weight;
+				b += source[pixelOffset + 3] * weight;
+				pixelOffset += sourceStride;
+			}
+			result[resultOffset] = a;
+			result[resultOffset + 1] = r;
+			result[resultOffset + 2] = g;
+			result[resultOffset + 3] = b;
+		}
+
+	}
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Canonical key identifying a {@linkplain URL} based image resource.
+ * <p>
+ * In contrast to {@linkplain URL#equals(Object)} and {@linkplain URL#hashCode()}, which may resolve host names and are
+ * comparably expensive for {@code jar:} URLs, image keys are compared by their {@linkplain URL}'s external form.
+ * Furthermore image keys are interned (there is exactly one live instance per external form) and their hash is
+ * computed once. Hence a cache lookup via an image key is reduced to a hash table probe and an identity check. Hot paths
+ * should therefore get their image keys once and use them for all subsequent lookups. The intern table only refers to
+ * its keys weakly, so keys (and their {@linkplain URL}s) no longer used by any cache are released again.
+ *
+ * @see ResourceTracker#getImage(ImageKey)
+ */
+public final class ImageKey {
+
+	private static final ReferenceQueue<Object> STALE_REFERENCES = new ReferenceQueue<>();
+
+	private static final Map<String, KeyReference> CANONICAL_KEYS = new ConcurrentHashMap<>();
+
+	private static final Map<Object, KeyReference> URL_KEYS = new ConcurrentHashMap<>();
+
+	private static final ClassValue<Map<String, ImageKey>> CLASS_RESOURCE_KEYS = new ClassValue<Map<String, ImageKey>>() {
+
+		@Override
+		protected Map<String, ImageKey> computeValue(@Nullable Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+
+	};
+
+	private final URL url;
+	private final String externalForm;
+	private final int hash;
+	private final KeyReference reference;
+
+	private ImageKey(URL url, String externalForm) {
+		this.url = url;
+		this.externalForm = externalForm;
+		this.hash = externalForm.hashCode();
+		this.reference = new KeyReference(this);
+	}
+
+	/**
+	 * Gets the canonical key for an image {@linkplain URL}.
+	 * <p>
+	 * Keys are memoized per {@linkplain URL} instance, so repeated calls with the same {@linkplain URL} object do not
+	 * cause any external form computation.
+	 *
+	 * @param imageUrl the image {@linkplain URL} to get the key for.
+	 * @return the canonical key for the given image {@linkplain URL}.
+	 */
+	public static ImageKey of(URL imageUrl) {
+		KeyReference urlKeyReference = URL_KEYS.get(new UrlLookup(imageUrl));
+		ImageKey imageKey = (urlKeyReference != null ? urlKeyReference.get() : null);
+
+		if (imageKey == null) {
+			expungeStaleReferences();
+			imageKey = intern(imageUrl);
+			URL_KEYS.put(new UrlReference(imageUrl), imageKey.reference);
+		}
+		return imageKey;
+	}
+
+	private static ImageKey intern(URL imageUrl) {
+		String externalForm = imageUrl.toExternalForm();
+		ImageKey imageKey = null;
+
+		while (imageKey == null) {
+			KeyReference keyReference = CANONICAL_KEYS.get(externalForm);
+
+			imageKey = (keyReference != null ? keyReference.get() : null);
+			if (imageKey == null) {
+				ImageKey newImageKey = new ImageKey(imageUrl, externalForm);
+
+				if (keyReference != null ? CANONICAL_KEYS.replace(externalForm, keyReference, newImageKey.reference)
+						: CANONICAL_KEYS.putIfAbsent(externalForm, newImageKey.reference) == null) {
+					imageKey = newImageKey;
+				}
+			}
+		}
+		return imageKey;
+	}
+
+	private static void expungeStaleReferences() {
+		Reference<?> staleReference;
+
+		while ((staleReference = STALE_REFERENCES.poll()) != null) {
+			if (staleReference instanceof KeyReference) {
+				KeyReference staleKeyReference = (KeyReference) staleReference;
+
+				CANONICAL_KEYS.remove(staleKeyReference.externalForm, staleKeyReference);
+			} else {
+				URL_KEYS.remove(staleReference);
+			}
+		}
+	}
+
+	/**
+	 * Gets the canonical key for an image resource.
+	 * <p>
+	 * The key is memoized per {@linkplain Class} and name, so repeated calls do not cause any resource lookup.
+	 *
+	 * @param clazz the {@linkplain Class} to use for resource access.
+	 * @param name the name of the image resource to get the key for.
+	 * @return the canonical key for the given image resource.
+	 * @throws IllegalArgumentException if the image resource does not exist.
+	 */
+	public static ImageKey of(Class<?> clazz, String name) {
+		return CLASS_RESOURCE_KEYS.get(clazz).computeIfAbsent(name,
+				resourceName -> of(ResourceTracker.getImageUrl(clazz, resourceName)));
+	}
+
+	/**
+	 * Gets the image {@linkplain URL} identified by this key.
+	 *
+	 * @return the image {@linkplain URL} identified by this key.
+	 */
+	public URL getUrl() {
+		return this.url;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hash;
+	}
+
+	@Override
+	public boolean equals(@Nullable Object obj) {
+		return this == obj || (obj instanceof ImageKey && this.externalForm.equals(((ImageKey) obj).externalForm));
+	}
+
+	@Override
+	public String toString() {
+		return this.externalForm;
+	}
+
+	private static final class KeyReference extends WeakReference<ImageKey> {
+
+		final String externalForm;
+
+		KeyReference(ImageKey imageKey) {
+			super(imageKey, STALE_REFERENCES);
+			this.externalForm = imageKey.externalForm;
+		}
+
+	}
+
+	@Nullable
+	private static URL identityUrl(@Nullable Object obj) {
+		URL url = null;
+
+		if (obj instanceof UrlReference) {
+			url = ((UrlReference) obj).get();
+		} else if (obj instanceof UrlLookup) {
+			url = ((UrlLookup) obj).url;
+		}
+		return url;
+	}
+
+	// Keys of the URL map compare URLs by identity (URL.equals and URL.hashCode may resolve host names). The stored
+	// keys refer to their URL weakly, while lookups use a plain (non-reference) key with the same hash and equality.
+	private static final class UrlReference extends WeakReference<URL> {
+
+		private final int hash;
+
+		UrlReference(URL url) {
+			super(url, STALE_REFERENCES);
+			this.hash = System.identityHashCode(url);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			URL url = get();
+
+			return this == obj || (url != null && url == identityUrl(obj));
+		}
+
+	}
+
+	private static final class UrlLookup {
+
+		final URL url;
+
+		UrlLookup(URL url) {
+			this.url = url;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.url);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			return this == obj || this.url == identityUrl(obj);
+		}
+
+	}
+
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+
+/**
+ * Transformation used to derive an {@linkplain Image} from an existing one.
+ * <p>
+ * Transformations are immutable and comparable (see {@linkplain #equals(Object)}), so they can be used as part of a
+ * cache key. Multiple transformations can be chained via {@linkplain #andThen(ImageTransform)}. The pixel work is
+ * performed on the image data's rows in parallel for larger images.
+ *
+ * @see ResourceTracker#getDerivedImage(ImageKey, ImageTransform)
+ */
+public final class ImageTransform {
+
+	private static final int PARALLEL_THRESHOLD = 64 * 64;
+
+	private static final PaletteData DIRECT_PALETTE = new PaletteData(0xff0000, 0x00ff00, 0x0000ff);
+
+	private final List<Step> steps;
+
+	private ImageTransform(List<Step> steps) {
+		this.steps = steps;
+	}
+
+	private ImageTransform(Step step) {
+		this(Collections.singletonList(step));
+	}
+
+	/**
+	 * Gets the transformation converting an image into its disabled representation (a low contrast and semi
+	 * transparent grayscale image).
+	 *
+	 * @return the requested transformation.
+	 */
+	public static ImageTransform disabled() {
+		return new ImageTransform(new DisabledStep());
+	}
+
+	/**
+	 * Gets the transformation converting an image into grayscale.
+	 *
+	 * @return the requested transformation.
+	 */
+	public static ImageTransform grayscale() {
+		return new ImageTransform(new GrayscaleStep());
+	}
+
+	/**
+	 * Gets the transformation tinting an image with a given color.
+	 *
+	 * @param color the color to tint the image with.
+	 * @param alpha the strength of the tint (in the range [0, 255]; {@code 0} leaves the image unchanged and
+	 * {@code 255} replaces the image's colors).
+	 * @return the requested transformation.
+	 */
+	public static ImageTransform tint(RGB color, int alpha) {
+		return new ImageTransform(new TintStep(color, Math.min(Math.max(alpha, 0), 255)));
+	}
+
+	/**
+	 * Gets the transformation overlaying an image with a badge.
+	 * <p>
+	 * The badge's image data is resolved via its {@linkplain ImageKey} for every zoom level the transformation is
+	 * applied for. Hence no native badge {@linkplain Image} is required at all.
+	 *
+	 * @param badgeKey the {@linkplain ImageKey} of the badge image to overlay.
+	 * @param position the corner to place the badge in (any combination of {@linkplain SWT#TOP} or
+	 * {@linkplain SWT#BOTTOM} and {@linkplain SWT#LEFT} or {@linkplain SWT#RIGHT}; the bottom right corner is used by
+	 * default).
+	 * @return the requested transformation.
+	 */
+	public static ImageTransform overlay(ImageKey badgeKey, int position) {
+		return new ImageTransform(new OverlayStep(badgeKey, position));
+	}
+
+	/**
+	 * Gets the transformation resizing an image.
+	 *
+	 * @param width the width (in points) of the resized image.
+	 * @param height the height (in points) of the resized image.
+	 * @return the requested transformation.
+	 */
+	public static ImageTransform resize(int width, int height) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Invalid size: " + width + "x" + height);
+		}
+		return new ImageTransform(new ResizeStep(width, height));
+	}
+
+	/**
+	 * Chains this transformation with another one.
+	 *
+	 * @param next the transformation to apply after this one.
+	 * @return the chained transformation.
+	 */
+	public ImageTransform andThen(ImageTransform next) {
+		List<Step> chainedSteps = new ArrayList<>(this.steps.size() + next.steps.size());
+
+		chainedSteps.addAll(this.steps);
+		chainedSteps.addAll(next.steps);
+		return new ImageTransform(Collections.unmodifiableList(chainedSteps));
+	}
+
+	/**
+	 * Applies this transformation to the given image data.
+	 * <p>
+	 * The given image data is not modified. If the transformation does not change the image data at all (e.g. a resize
+	 * to the image data's actual size), the given image data itself is returned. Badge images referenced by the
+	 * transformation are loaded on the calling thread.
+	 *
+	 * @param imageData the image data to transform.
+	 * @param zoom the zoom level of the given image data.
+	 * @return the transformed image data.
+	 */
+	public ImageData apply(ImageData imageData, int zoom) {
+		return apply(imageData, zoom, new ScaledImageResourceProvider.Store());
+	}
+
+	ImageData apply(ImageData imageData, int zoom, ScaledImageResourceProvider.Store imageStore) {
+		ImageData transformedImageData = imageData;
+
+		for (Step step : this.steps) {
+			transformedImageData = step.apply(transformedImageData, zoom, imageStore);
+		}
+		return transformedImageData;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.steps.hashCode();
+	}
+
+	@Override
+	public boolean equals(@Nullable Object obj) {
+		return this == obj || (obj instanceof ImageTransform && this.steps.equals(((ImageTransform) obj).steps));
+	}
+
+	@Override
+	public String toString() {
+		return this.steps.toString();
+	}
+
+	static int[] toArgb(ImageData imageData) {
+		int width = imageData.width;
+		int height = imageData.height;
+		PixelPalette palette = new PixelPalette(imageData.palette);
+		int transparencyType = imageData.getTransparencyType();
+		ImageData transparencyMask = (transparencyType == SWT.TRANSPARENCY_MASK
+				|| transparencyType == SWT.TRANSPARENCY_PIXEL ? imageData.getTransparencyMask() : null);
+		int[] argbPixels = new int[width * height];
+
+		rows(width, height).forEach(y -> {
+			int[] pixelRow = new int[width];
+			int[] maskRow = new int[width];
+			byte[] alphaRow = new byte[width];
+
+			imageData.getPixels(0, y, width, pixelRow, 0);
+			if (transparencyMask != null) {
+				transparencyMask.getPixels(0, y, width, maskRow, 0);
+			} else if (imageData.alphaData != null) {
+				imageData.getAlphas(0, y, width, alphaRow, 0);
+			}
+			for (int x = 0; x < width; x++) {
+				int rgb = palette.rgb(pixelRow[x]);
+				int alpha;
+
+				if (transparencyMask != null) {
+					alpha = (maskRow[x] != 0 ? 255 : 0);
+				} else if (imageData.alphaData != null) {
+					alpha = alphaRow[x] & 0xff;
+				} else if (imageData.alpha >= 0) {
+					alpha = imageData.alpha;
+				} else {
+					alpha = 255;
+				}
+				argbPixels[y * width + x] = (alpha << 24) | rgb;
+			}
+		});
+		return argbPixels;
+	}
+
+	static ImageData fromArgb(int[] argbPixels, int width, int height) {
+		ImageData imageData = new ImageData(width, height, 24, DIRECT_PALETTE);
+		byte[] alphaData = new byte[width * height];
+
+		rows(width, height).forEach(y -> {
+			int[] pixelRow = new int[width];
+
+			for (int x = 0; x < width; x++) {
+				int argb = argbPixels[y * width + x];
+
+				pixelRow[x] = argb & 0xffffff;
+				alphaData[y * width + x] = (byte) (argb >>> 24);
+			}
+			// Rows of 24 bit image data are byte aligned, hence setting distinct rows concurrently is safe
+			imageData.setPixels(0, y, width, pixelRow, 0);
+		});
+		imageData.alphaData = alphaData;
+		return imageData;
+	}
+
+	private static IntStream rows(int width, int height) {
+		IntStream rows = IntStream.range(0, height);
+
+		return (width * height >= PARALLEL_THRESHOLD ? rows.parallel() : rows);
+	}
+
+	private static int luminance(int argb) {
+		return (((argb >> 16) & 0xff) * 77 + ((argb >> 8) & 0xff) * 150 + (argb & 0xff) * 29) >> 8;
+	}
+
+	private abstract static class Step {
+
+		Step() {
+			// Nothing to do here
+		}
+
+		abstract ImageData apply(ImageData imageData, int zoom, ScaledImageResourceProvider.Store imageStore);
+
+	}
+
+	private abstract static class PixelStep extends Step {
+
+		PixelStep() {
+			// Nothing to do here
+		}
+
+		@Override
+		ImageData apply(ImageData imageData, int zoom, ScaledImageResourceProvider.Store imageStore) {
+			int width = imageData.width;
+			int height = imageData.height;
+			int[] argbPixels = toArgb(imageData);
+
+			rows(width, height).forEach(y -> {
+				int rowOffset = y * width;
+
+				for (int x = 0; x < width; x++) {
+					argbPixels[rowOffset + x] = apply(argbPixels[rowOffset + x]);
+				}
+			});
+			return fromArgb(argbPixels, width, height);
+		}
+
+		abstract int apply(int argb);
+
+		@Override
+		public int hashCode() {
+			return getClass().hashCode();
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			return obj != null && getClass().equals(obj.getClass());
+		}
+
+	}
+
+	private static final class GrayscaleStep extends PixelStep {
+
+		GrayscaleStep() {
+			// Nothing to do here
+		}
+
+		@Override
+		int apply(int argb) {
+			int gray = luminance(argb);
+
+			return (argb & 0xff000000) | (gray << 16) | (gray << 8) | gray;
+		}
+
+		@Override
+		public String toString() {
+			return "grayscale";
+		}
+
+	}
+
+	private static final class DisabledStep extends PixelStep {
+
+		DisabledStep() {
+			// Nothing to do here
+		}
+
+		@Override
+		int apply(int argb) {
+			// Halve the contrast around medium gray and the opacity
+			int gray = 0x80 + (luminance(argb) - 0x80) / 2;
+			int alpha = (argb >>> 24) / 2;
+
+			return (alpha << 24) | (gray << 16) | (gray << 8) | gray;
+		}
+
+		@Override
+		public String toString() {
+			return "disabled";
+		}
+
+	}
+
+	private static final class TintStep extends PixelStep {
+
+		private final RGB color;
+		private final int alpha;
+
+		TintStep(RGB color, int alpha) {
+			this.color = color;
+			this.alpha = alpha;
+		}
+
+		@Override
+		int apply(int argb) {
+			int red = blend((argb >> 16) & 0xff, this.color.red);
+			int green = blend((argb >> 8) & 0xff, this.color.green);
+			int blue = blend(argb & 0xff, this.color.blue);
+
+			return (argb & 0xff000000) | (red << 16) | (green << 8) | blue;
+		}
+
+		private int blend(int value, int tintValue) {
+			return (value * (255 - this.alpha) + tintValue * this.alpha + 127) / 255;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.color, this.alpha);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			return this == obj || (obj instanceof TintStep && this.color.equals(((TintStep) obj).color)
+					&& this.alpha == ((TintStep) obj).alpha);
+		}
+
+		@Override
+		public String toString() {
+			return "tint(" + this.color + ", " + this.alpha + ")";
+		}
+
+	}
+
+	private static final class OverlayStep extends Step {
+
+		private final ImageKey badgeKey;
+		private final int position;
+
+		OverlayStep(ImageKey badgeKey, int position) {
+			this.badgeKey = badgeKey;
+			this.position = position & (SWT.TOP | SWT.BOTTOM | SWT.LEFT | SWT.RIGHT);
+		}
+
+		@Override
+		ImageData apply(ImageData imageData, int zoom, ScaledImageResourceProvider.Store imageStore) {
+			ScaledImageResourceProvider badgeProvider = imageStore.forKey(this.badgeKey);
+			ImageData overlayImageData = badgeProvider.deriveImageData(zoom,
+					badgeImageData -> overlay(imageData, badgeImageData));
+
+			if (overlayImageData == null) {
+				// No badge variant for this zoom level; scale the standard one
+				overlayImageData = badgeProvider.deriveImageData(ScaledImageResourceProvider.STANDARD_ZOOM,
+						badgeImageData -> overlay(imageData,
+								ImageDataScaler.scale(badgeImageData,
+										Math.max(1, Math.round(badgeImageData.width * zoom / 100.0f)),
+										Math.max(1, Math.round(badgeImageData.height * zoom / 100.0f)))));
+			}
+			return (overlayImageData != null ? overlayImageData : imageData);
+		}
+
+		private ImageData overlay(ImageData imageData, ImageData badgeImageData) {
+			int width = imageData.width;
+			int height = imageData.height;
+			int[] argbPixels = toArgb(imageData);
+			int badgeWidth = Math.min(badgeImageData.width, width);
+			int badgeHeight = Math.min(badgeImageData.height, height);
+			int[] badgePixels = toArgb(badgeImageData);
+			int left = ((this.position & SWT.LEFT) != 0 ? 0 : width - badgeWidth);
+			int top = ((this.position & SWT.TOP) != 0 ? 0 : height - badgeHeight);
+
+			rows(badgeWidth, badgeHeight).forEach(y -> {
+				for (int x = 0; x < badgeWidth; x++) {
+					int pixelOffset = (top + y) * width + left + x;
+
+					argbPixels[pixelOffset] = composite(badgePixels[y * badgeImageData.width + x],
+							argbPixels[pixelOffset]);
+				}
+			});
+			return fromArgb(argbPixels, width, height);
+		}
+
+		private static int composite(int source, int target) {
+			int sourceAlpha = source >>> 24;
+			int result;
+
+			if (sourceAlpha == 255) {
+				result = source;
+			} else if (sourceAlpha == 0) {
+				result = target;
+			} else {
+				// Porter-Duff source over
+				int targetAlpha = (target >>> 24) * (255 - sourceAlpha) / 255;
+				int alpha = sourceAlpha + targetAlpha;
+
+				result = alpha << 24;
+				for (int shift = 0; shift <= 16; shift += 8) {
+					int channel = (((source >> shift) & 0xff) * sourceAlpha + ((target >> shift) & 0xff) * targetAlpha)
+							/ alpha;
+
+					result |= channel << shift;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.badgeKey, this.position);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			return this == obj || (obj instanceof OverlayStep && this.badgeKey.equals(((OverlayStep) obj).badgeKey)
+					&& this.position == ((OverlayStep) obj).position);
+		}
+
+		@Override
+		public String toString() {
+			return "overlay(" + this.badgeKey + ", " + this.position + ")";
+		}
+
+	}
+
+	private static final class ResizeStep extends Step {
+
+		private final int width;
+		private final int height;
+
+		ResizeStep(int width, int height) {
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		ImageData apply(ImageData imageData, int zoom, ScaledImageResourceProvider.Store imageStore) {
+			int scaledWidth = Math.max(1, Math.round(this.width * zoom / 100.0f));
+			int scaledHeight = Math.max(1, Math.round(this.height * zoom / 100.0f));
+
+			return (imageData.width != scaledWidth || imageData.height != scaledHeight
+					? ImageDataScaler.scale(imageData, scaledWidth, scaledHeight)
+					: imageData);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.width, this.height);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			return this == obj || (obj instanceof ResizeStep && this.width == ((ResizeStep) obj).width
+					&& this.height == ((ResizeStep) obj).height);
+		}
+
+		@Override
+		public String toString() {
+			return "resize(" + this.width + ", " + this.height + ")";
+		}
+
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import de.carne.util.Exceptions;
+import de.carne.util.logging.Log;
+
+/**
+ * Monitors the heap memory pools and notifies the registered {@linkplain ResourceTracker}s about memory pressure.
+ * <p>
+ * Memory pressure is signaled via the collection usage thresholds of the heap memory pools (see
+ * {@linkplain MemoryPoolMXBean#setCollectionUsageThreshold(long)}). As these thresholds are JVM global settings, they
+ * are only set by the monitor if the application has opted in via {@linkplain #setUsageThreshold(double)} (and only for
+ * the memory pools without a threshold set by the application). The notification listener is only installed as long
+ * as at least one tracker is registered. Any threshold set by the monitor is reset as soon as the last tracker has been
+ * unregistered.
+ */
+final class MemoryPressureMonitor {
+
+	private static final Log LOG = new Log();
+
+	private static final Set<ResourceTracker> TRACKERS = Collections.newSetFromMap(new WeakHashMap<>());
+
+	private static final NotificationListener LISTENER = (notification, handback) -> onNotification(notification);
+
+	// The thresholds set by the monitor (to be reset on uninstall)
+	private static final Map<MemoryPoolMXBean, Long> INSTALLED_THRESHOLDS = new IdentityHashMap<>();
+
+	private static double usageThreshold = 0.0;
+	private static boolean installed = false;
+
+	private MemoryPressureMonitor() {
+		// Prevent instantiation
+	}
+
+	static synchronized void setUsageThreshold(double threshold) {
+		if (threshold < 0.0 || threshold > 1.0) {
+			throw new IllegalArgumentException("Invalid usage threshold: " + threshold);
+		}
+		resetThresholds();
+		usageThreshold = threshold;
+		if (installed) {
+			setThresholds();
+		}
+	}
+
+	static synchronized double getUsageThreshold() {
+		return usageThreshold;
+	}
+
+	static synchronized void register(ResourceTracker tracker) {
+		TRACKERS.add(tracker);
+		if (!installed) {
+			setThresholds();
+			((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(LISTENER, null, null);
+			installed = true;
+		}
+	}
+
+	static synchronized void unregister(ResourceTracker tracker) {
+		TRACKERS.remove(tracker);
+		if (installed && TRACKERS.isEmpty()) {
+			uninstall();
+		}
+	}
+
+	private static void uninstall() {
+		try {
+			((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(LISTENER);
+		} catch (ListenerNotFoundException e) {
+			Exceptions.ignore(e);
+		}
+		resetThresholds();
+		installed = false;
+	}
+
+	private static void setThresholds() {
+		if (usageThreshold > 0.0) {
+			for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+				if (memoryPool.getType() == MemoryType.HEAP && memoryPool.isCollectionUsageThresholdSupported()
+						&& memoryPool.getCollectionUsageThreshold() == 0) {
+					MemoryUsage memoryUsage = memoryPool.getCollectionUsage();
+					long max = (memoryUsage != null ? memoryUsage.getMax() : -1);
+
+					if (max > 0) {
+						// A threshold of 0 disables the notification, hence use at least 1
+						long threshold = Math.max(1, (long) (max * usageThreshold));
+
+						memoryPool.setCollectionUsageThreshold(threshold);
+						INSTALLED_THRESHOLDS.put(memoryPool, threshold);
+						LOG.debug("Monitoring memory pool ''{0}'' (threshold: {1})", memoryPool.getName(), threshold);
+					}
+				}
+			}
+		}
+	}
+
+	private static void resetThresholds() {
+		for (Map.Entry<MemoryPoolMXBean, Long> installedThreshold : INSTALLED_THRESHOLDS.entrySet()) {
+			MemoryPoolMXBean memoryPool = installedThreshold.getKey();
+
+			// Leave the threshold alone if it has been changed by the application in the meantime
+			if (memoryPool.getCollectionUsageThreshold() == installedThreshold.getValue().longValue()) {
+				memoryPool.setCollectionUsageThreshold(0);
+			}
+		}
+		INSTALLED_THRESHOLDS.clear();
+	}
+
+	private static void onNotification(Notification notification) {
+		if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+			List<ResourceTracker> trackers;
+
+			synchronized (MemoryPressureMonitor.class) {
+				trackers = new ArrayList<>(TRACKERS);
+			}
+			LOG.info("Memory pressure detected; notifying {0} resource tracker(s)", trackers.size());
+			for (ResourceTracker tracker : trackers) {
+				if (tracker.getDevice().isDisposed()) {
+					unregister(tracker);
+				} else {
+					tracker.onMemoryPressure();
+				}
+			}
+		}
+	}
+
+}
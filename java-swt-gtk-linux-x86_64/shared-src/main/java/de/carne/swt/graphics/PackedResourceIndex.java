@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.graphics.Resource;
+
+/**
+ * Open addressing hash index mapping packed {@code int} keys to {@linkplain Resource} instances.
+ * <p>
+ * Lookups are lock and allocation free. Updates are synchronized on the index instance and store fully initialized
+ * (immutable) entries only. A new entry is inserted into the published table in place, re-using the slot of its key or
+ * of a disposed resource whenever possible. Only if the load factor would exceed 1/2, a new table with twice the
+ * capacity is built (dropping the entries of already disposed resources on the way) and published. As slots are never
+ * cleared, readers always see a consistent probe sequence. The number of entries is capped; keys beyond the cap are not
+ * indexed and callers have to fall back to their regular lookup path.
+ *
+ * @param <R> the actual resource type.
+ */
+final class PackedResourceIndex<R extends Resource> {
+
+	private static final int INITIAL_CAPACITY = 64;
+	private static final int MAX_ENTRIES = 4096;
+
+	private volatile Entry<?>[] table = new Entry<?>[INITIAL_CAPACITY];
+	private int used = 0;
+	private int rejected = 0;
+
+	@Nullable
+	R get(int key) {
+		Entry<?>[] currentTable = this.table;
+		int mask = currentTable.length - 1;
+		int index = hash(key) & mask;
+		R resource = null;
+		Entry<?> entry;
+
+		while ((entry = currentTable[index]) != null) {
+			if (entry.key == key) {
+				resource = castResource(entry.resource);
+				break;
+			}
+			index = (index + 1) & mask;
+		}
+		return resource;
+	}
+
+	synchronized void put(int key, R resource) {
+		Entry<?>[] currentTable = this.table;
+		int slot = slot(currentTable, key);
+
+		// Rebuild if the load factor is exceeded (or from time to time once the cap has been reached, to drop the
+		// entries of disposed resources not re-used so far)
+		if (currentTable[slot] == null && ((this.used + 1) * 2 > currentTable.length
+				|| (this.used >= MAX_ENTRIES && ++this.rejected >= MAX_ENTRIES / 4))) {
+			currentTable = rebuild(currentTable);
+			slot = slot(currentTable, key);
+		}
+		if (currentTable[slot] != null || this.used < MAX_ENTRIES) {
+			if (currentTable[slot] == null) {
+				this.used++;
+			}
+			currentTable[slot] = new Entry<>(key, resource);
+		}
+		// Re-publish the (possibly updated) table to make the stored entry visible
+		this.table = currentTable;
+	}
+
+	synchronized void clear() {
+		this.table = new Entry<?>[INITIAL_CAPACITY];
+		this.used = 0;
+		this.rejected = 0;
+	}
+
+	// Gets the slot to store the given key in: its current slot, the first slot of a disposed resource along the probe
+	// sequence or the free slot terminating the probe sequence
+	private static int slot(Entry<?>[] table, int key) {
+		int mask = table.length - 1;
+		int index = hash(key) & mask;
+		int disposedIndex = -1;
+		Entry<?> entry;
+
+		while ((entry = table[index]) != null && entry.key != key) {
+			if (disposedIndex < 0 && entry.resource.isDisposed()) {
+				disposedIndex = index;
+			}
+			index = (index + 1) & mask;
+		}
+		return (entry == null && disposedIndex >= 0 ? disposedIndex : index);
+	}
+
+	private Entry<?>[] rebuild(Entry<?>[] currentTable) {
+		int liveCount = 1;
+
+		for (Entry<?> entry : currentTable) {
+			if (entry != null && !entry.resource.isDisposed()) {
+				liveCount++;
+			}
+		}
+
+		// Keep the load factor below 1/2 (the new table may as well be smaller than the current one)
+		int capacity = INITIAL_CAPACITY;
+
+		while (liveCount * 2 > capacity) {
+			capacity *= 2;
+		}
+
+		Entry<?>[] rebuiltTable = new Entry<?>[capacity];
+
+		this.used = 0;
+		this.rejected = 0;
+		for (Entry<?> entry : currentTable) {
+			if (entry != null && !entry.resource.isDisposed() && this.used < MAX_ENTRIES) {
+				rebuiltTable[slot(rebuiltTable, entry.key)] = entry;
+				this.used++;
+			}
+		}
+		this.table = rebuiltTable;
+		return rebuiltTable;
+	}
+
+	private static int hash(int key) {
+		int hash = key * 0x9e3779b9;
+
+		return hash ^ (hash >>> 16);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <R> R castResource(Object resource) {
+		return (R) resource;
+	}
+
+	private static final class Entry<R extends Resource> {
+
+		final int key;
+		final R resource;
+
+		Entry(int key, R resource) {
+			this.key = key;
+			this.resource = resource;
+		}
+
+	}
+
+}
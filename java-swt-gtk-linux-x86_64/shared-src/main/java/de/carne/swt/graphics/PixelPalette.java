@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+
+/**
+ * Allocation free lookup of the colors of an image's pixels.
+ * <p>
+ * In contrast to {@linkplain PaletteData#getRGB(int)} no {@linkplain RGB} object is created per pixel. The colors of
+ * an indexed palette are looked up from a table built once; the colors of a direct palette are extracted via the
+ * palette's masks and shifts.
+ */
+final class PixelPalette {
+
+	private final PaletteData palette;
+	private final int @Nullable [] indexedColors;
+
+	PixelPalette(PaletteData palette) {
+		this.palette = palette;
+		if (palette.isDirect) {
+			this.indexedColors = null;
+		} else {
+			RGB[] colors = palette.colors;
+			int[] packedColors = new int[colors.length];
+
+			for (int colorIndex = 0; colorIndex < colors.length; colorIndex++) {
+				RGB color = colors[colorIndex];
+
+				packedColors[colorIndex] = (color.red << 16) | (color.green << 8) | color.blue;
+			}
+			this.indexedColors = packedColors;
+		}
+	}
+
+	/**
+	 * Gets the color of a pixel.
+	 *
+	 * @param pixel the pixel value to get the color for.
+	 * @return the pixel's color as a packed RGB value ({@code 0xRRGGBB}).
+	 */
+	int rgb(int pixel) {
+		int[] packedColors = this.indexedColors;
+		int rgb;
+
+		if (packedColors != null) {
+			if (pixel < 0 || pixel >= packedColors.length) {
+				SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+			}
+			rgb = packedColors[pixel];
+		} else {
+			rgb = (channel(pixel, this.palette.redMask, this.palette.redShift) << 16)
+					| (channel(pixel, this.palette.greenMask, this.palette.greenShift) << 8)
+					| channel(pixel, this.palette.blueMask, this.palette.blueShift);
+		}
+		return rgb;
+	}
+
+	private static int channel(int pixel, int mask, int shift) {
+		int value = pixel & mask;
+
+		return (shift < 0 ? value >>> -shift : value << shift) & 0xff;
+	}
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+/**
+ * Functional interface used to report the progress of a resource preload.
+ *
+ * @see ResourceTracker#preload(ResourceManifest, PreloadProgressListener)
+ */
+@FunctionalInterface
+public interface PreloadProgressListener {
+
+	/**
+	 * Called whenever a preload step has been completed.
+	 * <p>
+	 * This function is always invoked on the tracker's {@linkplain org.eclipse.swt.graphics.Device} thread.
+	 *
+	 * @param completed the number of completed steps.
+	 * @param total the total number of steps.
+	 */
+	void onProgress(int completed, int total);
+
+}
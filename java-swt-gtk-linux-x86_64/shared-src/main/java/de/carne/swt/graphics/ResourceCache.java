@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.graphics.Resource;
+
+import de.carne.swt.util.LatencyHistogram;
+
+/**
+ * Cache for {@linkplain Resource} instances of a specific type.
+ * <p>
+ * The cache distinguishes between retained resources (added via {@linkplain #put(Object, Resource)}) and leased
+ * resources (added via {@linkplain #acquire(Object, Resource)}). Retained resources are owned by the cache and are
+ * kept in access order. The least recently used ones are evicted (and disposed) from the cold end as soon as the
+ * accumulated weight of the cached resources exceeds the configured budget. Hence eviction only visits the entries
+ * actually evicted (plus any leased entries in between). Resources with outstanding {@linkplain ResourceLease}s are
+ * never evicted. Leased resources are disposed as soon as their last lease has been released. They are never handed
+ * out via {@linkplain #get(Object)}, as a getter cannot signal when it stops using a resource. As leases may be
+ * released on any thread, the disposal of a released resource is handed over to the cache's disposal
+ * {@linkplain Executor} (which runs it on the {@linkplain org.eclipse.swt.graphics.Device}'s thread).
+ * <p>
+ * The cache may be accessed from any thread. All operations are synchronized on the cache instance.
+ * <p>
+ * Besides the cached resources, the cache also records the usage statistics (see {@linkplain ResourceStatistics}) for
+ * its resource type.
+ *
+ * @param <R> the actual resource type.
+ */
+final class ResourceCache<R extends Resource> {
+
+	static final long UNLIMITED = Long.MAX_VALUE;
+
+	private final Class<R> type;
+	private final LinkedHashMap<Object, Entry<R>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<Object, Entry<R>> leasedEntries = new HashMap<>();
+	private long accessClock = 0;
+	private final ToLongFunction<R> weigher;
+	private final Executor disposer;
+	private volatile long budget = UNLIMITED;
+	private volatile long size = 0;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LatencyHistogram createLatency = new LatencyHistogram();
+
+	ResourceCache(Class<R> type, Executor disposer) {
+		this(type, resource -> 0, disposer);
+	}
+
+	ResourceCache(Class<R> type, ToLongFunction<R> weigher, Executor disposer) {
+		this.type = type;
+		this.weigher = weigher;
+		this.disposer = disposer;
+	}
+
+	Class<R> getType() {
+		return this.type;
+	}
+
+	@Nullable
+	synchronized R get(Object descriptor) {
+		Entry<R> entry = liveEntry(this.entries, descriptor);
+		R resource = null;
+
+		if (entry != null) {
+			entry.touch(++this.accessClock);
+			resource = entry.resource();
+		}
+		return resource;
+	}
+
+	synchronized void put(Object descriptor, R resource) {
+		putEntry(descriptor, resource);
+		evict(descriptor);
+	}
+
+	@Nullable
+	synchronized ResourceLease<R> acquire(Object descriptor) {
+		Entry<R> entry = liveEntry(this.entries, descriptor);
+		ResourceLease<R> lease = null;
+
+		if (entry != null) {
+			entry.touch(++this.accessClock);
+		} else {
+			entry = liveEntry(this.leasedEntries, descriptor);
+		}
+		if (entry != null) {
+			lease = lease(entry);
+		}
+		return lease;
+	}
+
+	synchronized ResourceLease<R> acquire(Object descriptor, R resource) {
+		Entry<R> entry = new Entry<>(descriptor, resource, this.weigher.applyAsLong(resource), false);
+		Entry<R> previousEntry = this.leasedEntries.put(descriptor, entry);
+
+		if (previousEntry != null) {
+			// Only happens if the previous resource has been disposed externally
+			this.size -= previousEntry.weight();
+		}
+		this.size += entry.weight();
+		return lease(entry);
+	}
+
+	long getBudget() {
+		return this.budget;
+	}
+
+	synchronized void setBudget(long budget) {
+		this.budget = (budget >= 0 ? budget : UNLIMITED);
+		evict(null);
+	}
+
+	long getSize() {
+		return this.size;
+	}
+
+	void recordHit() {
+		this.hits.increment();
+	}
+
+	void recordMiss() {
+		this.misses.increment();
+	}
+
+	void recordCreate(long nanos) {
+		this.createLatency.record(nanos);
+	}
+
+	synchronized ResourceStatistics getStatistics() {
+		return new ResourceStatistics(this.type, this.hits.sum(), this.misses.sum(),
+				this.entries.size() + this.leasedEntries.size(), this.size, this.createLatency.snapshot());
+	}
+
+	synchronized long accessMark() {
+		return this.accessClock;
+	}
+
+	synchronized int demote(long accessMark) {
+		Iterator<Entry<R>> entryIterator = this.entries.values().iterator();
+		int demoted = 0;
+
+		// Entries are kept in access order, hence only the cold prefix has to be visited
+		while (entryIterator.hasNext()) {
+			Entry<R> entry = entryIterator.next();
+
+			if (entry.lastAccess() > accessMark) {
+				break;
+			}
+			if (!entry.isLeased()) {
+				entryIterator.remove();
+				this.size -= entry.weight();
+				entry.resource().dispose();
+				demoted++;
+			}
+		}
+		return demoted;
+	}
+
+	synchronized void forEachResource(Consumer<? super R> action) {
+		this.entries.values().forEach(entry -> action.accept(entry.resource()));
+		this.leasedEntries.values().forEach(entry -> action.accept(entry.resource()));
+	}
+
+	synchronized void disposeAll() {
+		this.entries.values().forEach(entry -> entry.resource().dispose());
+		this.entries.clear();
+		this.leasedEntries.values().forEach(entry -> entry.resource().dispose());
+		this.leasedEntries.clear();
+		this.size = 0;
+	}
+
+	@Nullable
+	private Entry<R> liveEntry(Map<Object, Entry<R>> entryMap, Object descriptor) {
+		Entry<R> entry = entryMap.get(descriptor);
+
+		// Discard resources which have been disposed behind the cache's back
+		if (entry != null && entry.resource().isDisposed()) {
+			entryMap.remove(descriptor);
+			this.size -= entry.weight();
+			entry = null;
+		}
+		return entry;
+	}
+
+	private Entry<R> putEntry(Object descriptor, R resource) {
+		Entry<R> entry = new Entry<>(descriptor, resource, this.weigher.applyAsLong(resource), true);
+		Entry<R> previousEntry = this.entries.put(descriptor, entry);
+		long updatedSize = this.size;
+
+		if (previousEntry != null) {
+			updatedSize -= previousEntry.weight();
+			if (previousEntry.resource() != resource) {
+				previousEntry.resource().dispose();
+			}
+		}
+		entry.touch(++this.accessClock);
+		this.size = updatedSize + entry.weight();
+		return entry;
+	}
+
+	private ResourceLease<R> lease(Entry<R> entry) {
+		entry.acquire();
+		return new ResourceLease<>(entry.resource(), () -> release(entry));
+	}
+
+	private synchronized void release(Entry<R> entry) {
+		if (entry.release() && this.leasedEntries.remove(entry.descriptor(), entry)) {
+			R resource = entry.resource();
+
+			this.size -= entry.weight();
+			this.disposer.execute(resource::dispose);
+		}
+	}
+
+	private void evict(@Nullable Object keepDescriptor) {
+		if (this.size > this.budget) {
+			// Entries are kept in access order, hence evict from the cold end until the budget is met
+			Iterator<Entry<R>> entryIterator = this.entries.values().iterator();
+			long updatedSize = this.size;
+
+			while (updatedSize > this.budget && entryIterator.hasNext()) {
+				Entry<R> entry = entryIterator.next();
+
+				if (!entry.isLeased() && !entry.descriptor().equals(keepDescriptor)) {
+					entryIterator.remove();
+					updatedSize -= entry.weight();
+					entry.resource().dispose();
+				}
+			}
+			this.size = updatedSize;
+		}
+	}
+
+	private static final class Entry<R extends Resource> {
+
+		private final Object descriptor;
+		private final R resource;
+		private final long weight;
+		private final boolean retained;
+		private long lastAccess = 0;
+		private int leaseCount = 0;
+
+		Entry(Object descriptor, R resource, long weight, boolean retained) {
+			this.descriptor = descriptor;
+			this.resource = resource;
+			this.weight = weight;
+			this.retained = retained;
+		}
+
+		Object descriptor() {
+			return this.descriptor;
+		}
+
+		R resource() {
+			return this.resource;
+		}
+
+		long weight() {
+			return this.weight;
+		}
+
+		long lastAccess() {
+			return this.lastAccess;
+		}
+
+		void touch(long access) {
+			this.lastAccess = access;
+		}
+
+		void acquire() {
+			this.leaseCount++;
+		}
+
+		boolean release() {
+			this.leaseCount--;
+			return this.leaseCount == 0 && !this.retained;
+		}
+
+		boolean isLeased() {
+			return this.leaseCount > 0;
+		}
+
+	}
+
+}
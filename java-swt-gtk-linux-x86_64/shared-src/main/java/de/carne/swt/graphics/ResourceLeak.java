@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.graphics.Resource;
+
+/**
+ * Resource leak reported by the {@linkplain ResourceLeakDetector}.
+ */
+public final class ResourceLeak {
+
+	/**
+	 * The different kinds of resource leaks.
+	 */
+	public enum Kind {
+
+		/**
+		 * A {@linkplain ResourceLease} has not been released before its {@linkplain ResourceTracker} was disposed.
+		 */
+		UNRELEASED_LEASE,
+
+		/**
+		 * A {@linkplain Resource} has been created without a {@linkplain ResourceTracker} and is still alive.
+		 */
+		UNTRACKED
+
+	}
+
+	private final Kind kind;
+	private final String description;
+	@Nullable
+	private final Throwable allocation;
+
+	ResourceLeak(Kind kind, String description, @Nullable Throwable allocation) {
+		this.kind = kind;
+		this.description = description;
+		this.allocation = allocation;
+	}
+
+	/**
+	 * Gets the kind of this leak.
+	 *
+	 * @return the kind of this leak.
+	 */
+	public Kind getKind() {
+		return this.kind;
+	}
+
+	/**
+	 * Gets the description of the leaked resource.
+	 *
+	 * @return the description of the leaked resource.
+	 */
+	public String getDescription() {
+		return this.description;
+	}
+
+	/**
+	 * Gets the {@linkplain Throwable} recorded during the allocation of the leaked resource.
+	 *
+	 * @return the {@linkplain Throwable} recorded during the allocation of the leaked resource (may be {@code null} if
+	 * the allocation has not been sampled).
+	 */
+	@Nullable
+	public Throwable getAllocation() {
+		return this.allocation;
+	}
+
+	@Override
+	public String toString() {
+		return this.kind + ": " + this.description;
+	}
+
+}
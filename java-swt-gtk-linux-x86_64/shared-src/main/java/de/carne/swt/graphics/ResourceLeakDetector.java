@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.graphics.Device;
+import org.eclipse.swt.graphics.DeviceData;
+import org.eclipse.swt.graphics.Resource;
+import org.eclipse.swt.widgets.Display;
+
+import de.carne.util.logging.Log;
+
+/**
+ * Sampling leak detector for the {@linkplain Resource}s managed by {@linkplain ResourceTracker} instances.
+ * <p>
+ * If enabled (see {@linkplain #setSamplingRate(double)}), the detector records the allocation stack of a sampled
+ * subset of the {@linkplain ResourceLease}s acquired via a {@linkplain ResourceTracker}. As soon as a tracker is
+ * disposed, any of its sampled leases not yet released are recorded as leaks. (The resources owned by a tracker are
+ * disposed together with it and therefore never leak.) Furthermore, if the {@linkplain Device} has been created
+ * with tracking enabled (see {@linkplain DeviceData#tracking}), all alive resources not owned by any
+ * {@linkplain ResourceTracker} are reported as untracked leaks. To keep the overhead of short-lived trackers low,
+ * trackers are only made known to the detector if any kind of detection is enabled while they create resources.
+ * <p>
+ * The detected leaks are reported (and logged) on demand via {@linkplain #report(Device)} and automatically as soon as
+ * a {@linkplain org.eclipse.swt.widgets.Display} with an assigned {@linkplain ResourceTracker} is disposed. As only the
+ * sampled allocations are recorded, the detector's overhead can be kept low enough to leave it enabled in production.
+ */
+public final class ResourceLeakDetector {
+
+	private static final Log LOG = new Log();
+
+	private static final int PRUNE_INTERVAL = 256;
+
+	private static final String REPORT_REGISTERED_KEY = ResourceLeakDetector.class.getName();
+
+	private static volatile double samplingRate = 0.0;
+
+	private static final Queue<Allocation> ALLOCATIONS = new ConcurrentLinkedQueue<>();
+	private static final AtomicInteger ALLOCATION_COUNT = new AtomicInteger();
+	private static final Map<Device, Queue<ResourceLeak>> DETECTED_LEAKS = new ConcurrentHashMap<>();
+	private static final Set<ResourceTracker> TRACKERS = Collections
+			.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+	private ResourceLeakDetector() {
+		// Prevent instantiation
+	}
+
+	/**
+	 * Sets the sampling rate of the leak detector.
+	 *
+	 * @param rate the sampling rate to set (in the range [0.0, 1.0]; {@code 0.0} disables the leak detection and
+	 * {@code 1.0} records every allocation).
+	 */
+	public static void setSamplingRate(double rate) {
+		samplingRate = Math.min(Math.max(rate, 0.0), 1.0);
+		if (samplingRate == 0.0) {
+			ALLOCATIONS.clear();
+		}
+	}
+
+	/**
+	 * Gets the sampling rate of the leak detector.
+	 *
+	 * @return the sampling rate of the leak detector.
+	 */
+	public static double getSamplingRate() {
+		return samplingRate;
+	}
+
+	/**
+	 * Reports (and logs) the resource leaks detected so far for the given {@linkplain Device}.
+	 * <p>
+	 * Reported leaks are not reported again. Untracked resources are only reported if the {@linkplain Device} has been
+	 * created with tracking enabled. This function must be called on the {@linkplain Device}'s thread.
+	 *
+	 * @param device the {@linkplain Device} to report the leaks for.
+	 * @return the detected leaks.
+	 */
+	public static List<ResourceLeak> report(Device device) {
+		List<ResourceLeak> leaks = new ArrayList<>();
+		Queue<ResourceLeak> detectedLeaks = DETECTED_LEAKS.remove(device);
+
+		if (detectedLeaks != null) {
+			leaks.addAll(detectedLeaks);
+		}
+		if (!device.isDisposed() && device.isTracking()) {
+			detectUntrackedLeaks(device, leaks);
+		}
+		for (ResourceLeak leak : leaks) {
+			Throwable allocation = leak.getAllocation();
+
+			if (allocation != null) {
+				LOG.warning(allocation, "Resource leak detected: {0}", leak);
+			} else {
+				LOG.warning("Resource leak detected: {0}", leak);
+			}
+		}
+		return leaks;
+	}
+
+	private static void detectUntrackedLeaks(Device device, List<ResourceLeak> leaks) {
+		Set<Object> trackedResources = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<ResourceTracker> trackers;
+
+		synchronized (TRACKERS) {
+			trackers = new ArrayList<>(TRACKERS);
+		}
+		for (ResourceTracker tracker : trackers) {
+			if (tracker.getDevice() == device) {
+				tracker.forEachResource(trackedResources::add);
+			}
+		}
+
+		DeviceData deviceData = device.getDeviceData();
+
+		for (int objectIndex = 0; objectIndex < deviceData.objects.length; objectIndex++) {
+			Object object = deviceData.objects[objectIndex];
+
+			if (object instanceof Resource && !((Resource) object).isDisposed()
+					&& !trackedResources.contains(object)) {
+				leaks.add(new ResourceLeak(ResourceLeak.Kind.UNTRACKED, object.toString(),
+						deviceData.errors[objectIndex]));
+			}
+		}
+	}
+
+	static void recordResource(ResourceTracker tracker, Resource resource) {
+		// Trackers are only registered (on their first resource creation) if any kind of detection is enabled
+		if (samplingRate > 0.0 || resource.getDevice().isTracking()) {
+			TRACKERS.add(tracker);
+		}
+	}
+
+	static void recordLease(ResourceTracker tracker, ResourceLease<?> lease) {
+		if (sample()) {
+			record(new Allocation(tracker, lease, lease.get().toString()));
+		}
+	}
+
+	static void registerReport(Display display) {
+		// Runs on the display thread; the display data marks displays the report has already been registered for
+		if (display.getData(REPORT_REGISTERED_KEY) == null) {
+			display.setData(REPORT_REGISTERED_KEY, Boolean.TRUE);
+			display.disposeExec(() -> report(display));
+		}
+	}
+
+	static void trackerDisposed(ResourceTracker tracker) {
+		if (!ALLOCATIONS.isEmpty()) {
+			Queue<ResourceLeak> detectedLeaks = DETECTED_LEAKS.computeIfAbsent(tracker.getDevice(),
+					device -> new ConcurrentLinkedQueue<>());
+
+			ALLOCATIONS.removeIf(allocation -> {
+				boolean owned = allocation.isOwnedBy(tracker);
+
+				if (owned) {
+					ResourceLeak leak = allocation.check();
+
+					if (leak != null) {
+						detectedLeaks.add(leak);
+					}
+				}
+				return owned;
+			});
+		}
+	}
+
+	private static boolean sample() {
+		double currentSamplingRate = samplingRate;
+
+		return currentSamplingRate > 0.0
+				&& (currentSamplingRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < currentSamplingRate);
+	}
+
+	private static void record(Allocation allocation) {
+		ALLOCATIONS.add(allocation);
+		if (ALLOCATION_COUNT.incrementAndGet() % PRUNE_INTERVAL == 0) {
+			ALLOCATIONS.removeIf(Allocation::isObsolete);
+		}
+	}
+
+	private static final class Allocation {
+
+		private final WeakReference<ResourceTracker> tracker;
+		private final WeakReference<ResourceLease<?>> target;
+		private final String description;
+		private final Throwable stack;
+
+		Allocation(ResourceTracker tracker, ResourceLease<?> target, String description) {
+			this.tracker = new WeakReference<>(tracker);
+			this.target = new WeakReference<>(target);
+			this.description = description;
+			this.stack = new Throwable("Allocation of " + description);
+		}
+
+		boolean isOwnedBy(ResourceTracker owner) {
+			return this.tracker.get() == owner;
+		}
+
+		boolean isObsolete() {
+			ResourceLease<?> currentTarget = this.target.get();
+
+			return this.tracker.get() == null || currentTarget == null || currentTarget.isReleased();
+		}
+
+		@Nullable
+		ResourceLeak check() {
+			ResourceLeak leak = null;
+
+			if (!isObsolete()) {
+				leak = new ResourceLeak(ResourceLeak.Kind.UNRELEASED_LEASE, this.description, this.stack);
+			}
+			return leak;
+		}
+
+	}
+
+}
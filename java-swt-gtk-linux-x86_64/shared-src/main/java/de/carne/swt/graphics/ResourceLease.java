@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.graphics.Resource;
+
+/**
+ * Handle to a {@linkplain Resource} acquired from a {@linkplain ResourceTracker}.
+ * <p>
+ * The tracker counts the outstanding leases of every resource. As long as a resource is leased, it is not evicted from
+ * the tracker's cache. Resources created for a lease are disposed as soon as their last lease has been released. Such
+ * resources are never handed out by the tracker's getters (like {@linkplain ResourceTracker#getColor(RGB)}); a getter
+ * requesting the same descriptor gets its own tracker owned resource instead. Hence mixing getters and leases never
+ * extends the lifetime of a leased resource.
+ *
+ * @param <R> the actual resource type.
+ */
+public final class ResourceLease<R extends Resource> implements Supplier<R>, AutoCloseable {
+
+	private final R resource;
+	private final Runnable releaseAction;
+	private final AtomicBoolean released = new AtomicBoolean();
+
+	ResourceLease(R resource, Runnable releaseAction) {
+		this.resource = resource;
+		this.releaseAction = releaseAction;
+	}
+
+	/**
+	 * Gets the leased {@linkplain Resource}.
+	 *
+	 * @return the leased {@linkplain Resource}.
+	 * @throws IllegalStateException if the lease has already been released.
+	 */
+	@Override
+	public R get() {
+		if (this.released.get()) {
+			throw new IllegalStateException("Resource lease already released");
+		}
+		return this.resource;
+	}
+
+	/**
+	 * Checks whether this lease has been released.
+	 *
+	 * @return {@code true} if this lease has been released.
+	 */
+	public boolean isReleased() {
+		return this.released.get();
+	}
+
+	/**
+	 * Releases this lease.
+	 * <p>
+	 * Releasing an already released lease has no effect.
+	 */
+	public void release() {
+		if (this.released.compareAndSet(false, true)) {
+			this.releaseAction.run();
+		}
+	}
+
+	@Override
+	public void close() {
+		release();
+	}
+
+}
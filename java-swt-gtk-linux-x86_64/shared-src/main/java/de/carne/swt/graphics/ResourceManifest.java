@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.RGB;
+
+/**
+ * Manifest listing the {@linkplain Image}, {@linkplain Font} and {@linkplain Color} resources to preload.
+ *
+ * @see ResourceTracker#preload(ResourceManifest, PreloadProgressListener)
+ */
+public final class ResourceManifest {
+
+	private final List<URL> imageUrls = new ArrayList<>();
+	private final List<FontData> fontDatas = new ArrayList<>();
+	private final List<RGB> rgbs = new ArrayList<>();
+
+	/**
+	 * Adds an {@linkplain Image} resource to the manifest.
+	 *
+	 * @param clazz the {@linkplain Class} to use for resource access.
+	 * @param name the name of the {@linkplain Image} resource to add.
+	 * @return the updated manifest.
+	 * @throws IllegalArgumentException if the {@linkplain Image} resource does not exist.
+	 */
+	public ResourceManifest addImage(Class<?> clazz, String name) {
+		return addImage(ResourceTracker.getImageUrl(clazz, name));
+	}
+
+	/**
+	 * Adds multiple {@linkplain Image} resources to the manifest.
+	 *
+	 * @param clazz the {@linkplain Class} to use for resource access.
+	 * @param names the names of the {@linkplain Image} resources to add.
+	 * @return the updated manifest.
+	 * @throws IllegalArgumentException if one of the {@linkplain Image} resources does not exist.
+	 */
+	public ResourceManifest addImages(Class<?> clazz, Iterable<String> names) {
+		for (String name : names) {
+			addImage(clazz, name);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds an {@linkplain Image} resource to the manifest.
+	 *
+	 * @param imageUrl the {@linkplain URL} object describing the image to add.
+	 * @return the updated manifest.
+	 */
+	public ResourceManifest addImage(URL imageUrl) {
+		this.imageUrls.add(imageUrl);
+		return this;
+	}
+
+	/**
+	 * Adds a {@linkplain Font} resource to the manifest.
+	 *
+	 * @param fontData the {@linkplain FontData} object describing the font to add.
+	 * @return the updated manifest.
+	 */
+	public ResourceManifest addFont(FontData fontData) {
+		this.fontDatas.add(fontData);
+		return this;
+	}
+
+	/**
+	 * Adds a {@linkplain Color} resource to the manifest.
+	 *
+	 * @param rgb the {@linkplain RGB} object describing the color to add.
+	 * @return the updated manifest.
+	 */
+	public ResourceManifest addColor(RGB rgb) {
+		this.rgbs.add(rgb);
+		return this;
+	}
+
+	/**
+	 * Gets the number of resources listed in this manifest.
+	 *
+	 * @return the number of resources listed in this manifest.
+	 */
+	public int size() {
+		return this.imageUrls.size() + this.fontDatas.size() + this.rgbs.size();
+	}
+
+	List<URL> imageUrls() {
+		return Collections.unmodifiableList(this.imageUrls);
+	}
+
+	List<FontData> fontDatas() {
+		return Collections.unmodifiableList(this.fontDatas);
+	}
+
+	List<RGB> rgbs() {
+		return Collections.unmodifiableList(this.rgbs);
+	}
+
+}
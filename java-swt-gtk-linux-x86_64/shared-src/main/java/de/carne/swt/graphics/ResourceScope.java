@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+/**
+ * {@linkplain ResourceTracker} whose lifetime is bound to a code block.
+ * <p>
+ * Closing the scope disposes all resources created via the scope at once. Lookups of resources not created via the
+ * scope fall back to the parent tracker the scope has been created from.
+ *
+ * @see ResourceTracker#forScope()
+ */
+public abstract class ResourceScope extends ResourceTracker implements AutoCloseable {
+
+	/**
+	 * Constructs a new {@linkplain ResourceScope} instance.
+	 */
+	protected ResourceScope() {
+		// Nothing to do here
+	}
+
+	@Override
+	public void close() {
+		disposeAll();
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import org.eclipse.swt.graphics.Resource;
+
+import de.carne.swt.util.LatencyHistogram;
+
+/**
+ * Snapshot of the usage statistics of a single {@linkplain Resource} type managed by a {@linkplain ResourceTracker}.
+ *
+ * @see ResourceTracker#getStatistics()
+ */
+public final class ResourceStatistics {
+
+	private final Class<? extends Resource> type;
+	private final long hits;
+	private final long misses;
+	private final long liveHandles;
+	private final long estimatedBytes;
+	private final LatencyHistogram createLatency;
+
+	ResourceStatistics(Class<? extends Resource> type, long hits, long misses, long liveHandles, long estimatedBytes,
+			LatencyHistogram createLatency) {
+		this.type = type;
+		this.hits = hits;
+		this.misses = misses;
+		this.liveHandles = liveHandles;
+		this.estimatedBytes = estimatedBytes;
+		this.createLatency = createLatency;
+	}
+
+	/**
+	 * Gets the {@linkplain Resource} type these statistics are referring to.
+	 *
+	 * @return the {@linkplain Resource} type these statistics are referring to.
+	 */
+	public Class<? extends Resource> getType() {
+		return this.type;
+	}
+
+	/**
+	 * Gets the number of requests served from the cache.
+	 *
+	 * @return the number of requests served from the cache.
+	 */
+	public long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Gets the number of requests which required the creation of a new {@linkplain Resource}.
+	 *
+	 * @return the number of requests which required the creation of a new {@linkplain Resource}.
+	 */
+	public long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Gets the ratio of requests served from the cache.
+	 *
+	 * @return the ratio of requests served from the cache (in the range [0.0, 1.0]).
+	 */
+	public double getHitRatio() {
+		long requests = this.hits + this.misses;
+
+		return (requests > 0 ? (double) this.hits / requests : 0.0);
+	}
+
+	/**
+	 * Gets the number of currently allocated (not yet disposed) {@linkplain Resource} handles.
+	 *
+	 * @return the number of currently allocated (not yet disposed) {@linkplain Resource} handles.
+	 */
+	public long getLiveHandles() {
+		return this.liveHandles;
+	}
+
+	/**
+	 * Gets the estimated number of native bytes occupied by the allocated {@linkplain Resource} handles.
+	 * <p>
+	 * Only resource types with a significant native footprint (like images) are accounted. For all other types this
+	 * value is {@code 0}.
+	 *
+	 * @return the estimated number of native bytes occupied by the allocated {@linkplain Resource} handles.
+	 */
+	public long getEstimatedBytes() {
+		return this.estimatedBytes;
+	}
+
+	/**
+	 * Gets the latency histogram of the {@linkplain ResourceFactory#create(org.eclipse.swt.graphics.Device, Object)}
+	 * calls.
+	 *
+	 * @return the latency histogram of the {@linkplain ResourceFactory#create(org.eclipse.swt.graphics.Device, Object)}
+	 * calls.
+	 */
+	public LatencyHistogram getCreateLatency() {
+		return this.createLatency;
+	}
+
+	@Override
+	public String toString() {
+		return this.type.getSimpleName() + ": hits=" + this.hits + ", misses=" + this.misses + ", liveHandles="
+				+ this.liveHandles + ", estimatedBytes=" + this.estimatedBytes + ", createLatency={"
+				+ this.createLatency + "}";
+	}
+
+}
@@ -16,33 +16,86 @@
  */
 package de.carne.swt.graphics;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.StreamSupport;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.SWTException;
 import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Cursor;
 import org.eclipse.swt.graphics.Device;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.FontData;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.graphics.RGBA;
+import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.graphics.Resource;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 
+import de.carne.util.Exceptions;
+import de.carne.util.logging.Log;
+
 /**
  * Helper class used to track and manage dynamically created {@linkplain Resource} instances.
+ * <p>
+ * Instances of this class may be accessed from any thread. Device independent preparation work (like decoding image
+ * data) is performed on the calling thread. The actual {@linkplain Resource} creation is always executed on the
+ * {@linkplain Device}'s thread and is guaranteed to take place only once per descriptor.
  */
 public abstract class ResourceTracker {
 
-	private static final Map<Device, ResourceTracker> DEVICE_TRACKER = new HashMap<>();
+	private static final Log LOG = new Log();
+
+	private static final Map<Device, ResourceTracker> DEVICE_TRACKER = new ConcurrentHashMap<>();
+
+	private static final int NATIVE_IMAGE_DEPTH = 32;
 
-	private final Map<Object, Color> colorCache = new HashMap<>();
-	private final Map<Object, Font> fontCache = new HashMap<>();
-	private final Map<Object, Image> imageCache = new HashMap<>();
+	private final Map<Class<?>, ResourceCache<?>> caches = new ConcurrentHashMap<>();
+	private final ResourceCache<Color> colorCache = registerCache(new ResourceCache<>(Color.class, this::runDisposal));
+	private final PackedResourceIndex<Color> packedColors = new PackedResourceIndex<>();
+	private final ResourceCache<Font> fontCache = registerCache(new ResourceCache<>(Font.class, this::runDisposal));
+	private final ResourceCache<Image> imageCache = registerCache(
+			new ResourceCache<>(Image.class, ResourceTracker::imageBytes, this::runDisposal));
+	private final Map<Object, CompletableFuture<Image>> pendingImages = new ConcurrentHashMap<>();
+	private final Object creationLock = new Object();
+	private final AtomicReference<@Nullable ObjectName> mbeanName = new AtomicReference<>();
+	private volatile long imageDemotionMark = -1;
+
+	/**
+	 * Constructs a new {@linkplain ResourceTracker} instance.
+	 */
+	protected ResourceTracker() {
+		// Nothing to do here
+	}
 
 	/**
 	 * Gets the {@linkplain Device} this instance is assigned to.
@@ -64,12 +117,310 @@ public abstract class ResourceTracker {
 	 * Disposes any {@linkplain Resource} tracked by this instance.
 	 */
 	public void disposeAll() {
-		this.colorCache.forEach((descriptor, resource) -> resource.dispose());
-		this.colorCache.clear();
-		this.fontCache.forEach((descriptor, resource) -> resource.dispose());
-		this.fontCache.clear();
-		this.imageCache.forEach((descriptor, resource) -> resource.dispose());
-		this.imageCache.clear();
+		unregisterMBean();
+		setImageDemotion(false);
+		this.packedColors.clear();
+		this.caches.values().forEach(ResourceCache::disposeAll);
+		ResourceLeakDetector.trackerDisposed(this);
+	}
+
+	ScaledImageResourceProvider.Store imageStore() {
+		return forDevice(getDevice()).imageStore();
+	}
+
+	void forEachResource(Consumer<Resource> action) {
+		this.caches.values().forEach(cache -> cache.forEachResource(action));
+	}
+
+	/**
+	 * Gets the usage statistics of this instance.
+	 * <p>
+	 * A statistics snapshot is returned for every {@linkplain Resource} type managed by this instance (the
+	 * {@linkplain Color}, {@linkplain Font} and {@linkplain Image} types are always included; any other type is
+	 * included as soon as it has been requested once). Lookups which are served by a parent tracker (see
+	 * {@linkplain #forComposite(Composite)}) are counted as hits of this instance.
+	 *
+	 * @return the usage statistics of this instance.
+	 */
+	public List<ResourceStatistics> getStatistics() {
+		List<ResourceStatistics> statistics = new ArrayList<>(this.caches.size());
+
+		this.caches.values().forEach(cache -> statistics.add(cache.getStatistics()));
+		statistics.sort(Comparator.comparing(statistic -> statistic.getType().getName()));
+		return statistics;
+	}
+
+	/**
+	 * Registers this instance's usage statistics as a {@linkplain ResourceTrackerMXBean} with the platform MBean
+	 * server.
+	 * <p>
+	 * The MBean is registered as {@code de.carne.swt.graphics:type=ResourceTracker,name=<name>} and is unregistered
+	 * automatically as soon as this instance is disposed (see {@linkplain #disposeAll()}). Registering an already
+	 * registered instance again replaces the previous registration.
+	 *
+	 * @param name the name to register the MBean with.
+	 * @return the {@linkplain ObjectName} the MBean has been registered with.
+	 * @throws JMException if the registration fails.
+	 */
+	public ObjectName registerMBean(String name) throws JMException {
+		ObjectName objectName = ObjectName
+				.getInstance("de.carne.swt.graphics:type=ResourceTracker,name=" + ObjectName.quote(name));
+
+		unregisterMBean();
+		ManagementFactory.getPlatformMBeanServer()
+				.registerMBean(new StandardMBean(new StatisticsMXBean(), ResourceTrackerMXBean.class, true), objectName);
+		this.mbeanName.set(objectName);
+		return objectName;
+	}
+
+	/**
+	 * Unregisters this instance's {@linkplain ResourceTrackerMXBean} (if registered).
+	 *
+	 * @see #registerMBean(String)
+	 */
+	public void unregisterMBean() {
+		ObjectName objectName = this.mbeanName.getAndSet(null);
+
+		if (objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (JMException e) {
+				LOG.warning(e, "Failed to unregister MBean ''{0}''", objectName);
+			}
+		}
+	}
+
+	/**
+	 * Sets the maximum number of bytes the {@linkplain Image} resources cached by this instance may occupy.
+	 * <p>
+	 * Whenever the budget is exceeded, the least recently used images are evicted from the cache and disposed. As SWT
+	 * does not tell whether an image is still referenced by a widget, a budget should only be set for trackers whose
+	 * images are fetched on demand (e.g. during painting) and not permanently assigned to widgets. Images with
+	 * outstanding {@linkplain ResourceLease}s are never evicted.
+	 *
+	 * @param budget the budget in bytes to set (a negative value disables the budget).
+	 */
+	public void setImageCacheBudget(long budget) {
+		this.imageCache.setBudget(budget);
+	}
+
+	/**
+	 * Gets the maximum number of bytes the {@linkplain Image} resources cached by this instance may occupy.
+	 *
+	 * @return the maximum number of bytes the {@linkplain Image} resources cached by this instance may occupy
+	 * ({@linkplain Long#MAX_VALUE} if no budget has been set).
+	 */
+	public long getImageCacheBudget() {
+		return this.imageCache.getBudget();
+	}
+
+	/**
+	 * Gets the estimated number of bytes occupied by the {@linkplain Image} resources cached by this instance.
+	 *
+	 * @return the estimated number of bytes occupied by the {@linkplain Image} resources cached by this instance.
+	 */
+	public long getImageCacheSize() {
+		return this.imageCache.getSize();
+	}
+
+	/**
+	 * Enables or disables the demotion of cached {@linkplain Image} resources under memory pressure.
+	 * <p>
+	 * If enabled, all images not accessed since the previous memory pressure notification (or since the demotion has
+	 * been enabled) are disposed as soon as the heap usage exceeds its threshold. Demoted images are re-created
+	 * transparently on their next access (usually without any I/O, as the decoded image data is memoized as long as
+	 * memory permits). Like for the image cache budget (see {@linkplain #setImageCacheBudget(long)}), demotion should
+	 * only be enabled for trackers whose images are fetched on demand and not permanently assigned to widgets. Images
+	 * with outstanding {@linkplain ResourceLease}s are never demoted.
+	 *
+	 * @param enabled whether to enable or disable the demotion.
+	 * @see #setMemoryPressureThreshold(double)
+	 */
+	public void setImageDemotion(boolean enabled) {
+		if (enabled) {
+			this.imageDemotionMark = this.imageCache.accessMark();
+			MemoryPressureMonitor.register(this);
+		} else {
+			this.imageDemotionMark = -1;
+			MemoryPressureMonitor.unregister(this);
+		}
+	}
+
+	/**
+	 * Checks whether the demotion of cached {@linkplain Image} resources under memory pressure is enabled.
+	 *
+	 * @return {@code true} if the demotion is enabled.
+	 * @see #setImageDemotion(boolean)
+	 */
+	public boolean isImageDemotionEnabled() {
+		return this.imageDemotionMark >= 0;
+	}
+
+	/**
+	 * Sets the heap usage at which memory pressure is signaled to the trackers having image demotion enabled.
+	 * <p>
+	 * Memory pressure is detected via the collection usage thresholds of the heap memory pools (see
+	 * {@linkplain java.lang.management.MemoryPoolMXBean#setCollectionUsageThreshold(long)}). As these thresholds are
+	 * JVM global settings, by default only the thresholds set by the application itself are used. If a usage threshold
+	 * is set via this function, the thresholds of all heap memory pools not set otherwise are derived from it as long
+	 * as image demotion is enabled for at least one tracker. They are reset as soon as image demotion has been
+	 * disabled for all trackers.
+	 *
+	 * @param usageThreshold the fraction of the maximum heap pool size (in the range [0.0, 1.0]) at which memory
+	 * pressure is signaled ({@code 0.0} relies on the thresholds set by the application).
+	 * @see #setImageDemotion(boolean)
+	 */
+	public static void setMemoryPressureThreshold(double usageThreshold) {
+		MemoryPressureMonitor.setUsageThreshold(usageThreshold);
+	}
+
+	/**
+	 * Gets the heap usage at which memory pressure is signaled to the trackers having image demotion enabled.
+	 *
+	 * @return the fraction of the maximum heap pool size at which memory pressure is signaled ({@code 0.0} if only
+	 * the thresholds set by the application are used).
+	 * @see #setMemoryPressureThreshold(double)
+	 */
+	public static double getMemoryPressureThreshold() {
+		return MemoryPressureMonitor.getUsageThreshold();
+	}
+
+	void onMemoryPressure() {
+		Device device = getDevice();
+
+		// Invoked by the JMX notification thread, hence the device may have been disposed in the meantime
+		if (!device.isDisposed()) {
+			try {
+				runOnDevice(this::demoteImages);
+			} catch (SWTException e) {
+				if (e.code != SWT.ERROR_DEVICE_DISPOSED) {
+					throw e;
+				}
+				Exceptions.ignore(e);
+			}
+		}
+	}
+
+	private void demoteImages() {
+		long demotionMark = this.imageDemotionMark;
+
+		if (demotionMark >= 0) {
+			int demoted = this.imageCache.demote(demotionMark);
+
+			this.imageDemotionMark = this.imageCache.accessMark();
+			LOG.info("Demoted {0} image(s) due to memory pressure", demoted);
+		}
+	}
+
+	/**
+	 * Gets a {@linkplain Resource} of arbitrary type for a given descriptor.
+	 * <p>
+	 * Resources are cached per type and descriptor. This function can be used to cache any kind of
+	 * {@linkplain Resource} (like {@linkplain org.eclipse.swt.graphics.Cursor},
+	 * {@linkplain org.eclipse.swt.graphics.Pattern}, {@linkplain org.eclipse.swt.graphics.Path},
+	 * {@linkplain org.eclipse.swt.graphics.Region} or {@linkplain org.eclipse.swt.graphics.TextLayout}). As cached
+	 * resources are shared, the caller must not modify (or dispose) the returned resource.
+	 *
+	 * @param <R> the actual resource type.
+	 * @param <D> the actual descriptor type.
+	 * @param type the type of the resource to get.
+	 * @param descriptor the descriptor describing the resource to get.
+	 * @param factory the factory to use for resource creation.
+	 * @return the requested resource.
+	 */
+	public <R extends Resource, @NonNull D> R getResource(Class<R> type, D descriptor, ResourceFactory<D, R> factory) {
+		R cachedResource = getCachedResource(type, descriptor);
+		ResourceCache<R> cache = cache(type);
+
+		if (cachedResource == null) {
+			cache.recordMiss();
+			cachedResource = runCreation(() -> {
+				R createdResource = getCachedResource(type, descriptor);
+
+				if (createdResource == null) {
+					createdResource = createResource(cache, factory, descriptor);
+					cache.put(descriptor, createdResource);
+				}
+				return createdResource;
+			});
+		} else {
+			cache.recordHit();
+		}
+		return cachedResource;
+	}
+
+	/**
+	 * Gets a cached {@linkplain Resource} of arbitrary type.
+	 *
+	 * @param <R> the actual resource type.
+	 * @param <D> the actual descriptor type.
+	 * @param type the type of the resource to get.
+	 * @param descriptor the descriptor describing the resource to get.
+	 * @return the cached resource or {@code null} if not yet cached.
+	 */
+	@Nullable
+	protected <R extends Resource, @NonNull D> R getCachedResource(Class<R> type, D descriptor) {
+		return cache(type).get(descriptor);
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Resource} of arbitrary type for a given descriptor.
+	 * <p>
+	 * If the resource has already been created via {@linkplain #getResource(Class, Object, ResourceFactory)}, the lease
+	 * refers to that tracker owned resource and only protects it from eviction. Otherwise the resource is created for
+	 * the lease and disposed as soon as its last lease has been released (see {@linkplain ResourceLease}).
+	 *
+	 * @param <R> the actual resource type.
+	 * @param <D> the actual descriptor type.
+	 * @param type the type of the resource to acquire.
+	 * @param descriptor the descriptor describing the resource to acquire.
+	 * @param factory the factory to use for resource creation.
+	 * @return the {@linkplain ResourceLease} for the requested resource.
+	 * @see #getResource(Class, Object, ResourceFactory)
+	 */
+	public <R extends Resource, @NonNull D> ResourceLease<R> acquireResource(Class<R> type, D descriptor,
+			ResourceFactory<D, R> factory) {
+		ResourceLease<R> resourceLease = acquireCachedResource(type, descriptor);
+		ResourceCache<R> cache = cache(type);
+
+		if (resourceLease == null) {
+			cache.recordMiss();
+			resourceLease = runCreation(() -> {
+				ResourceLease<R> createdResourceLease = acquireCachedResource(type, descriptor);
+
+				if (createdResourceLease == null) {
+					createdResourceLease = cache.acquire(descriptor, createResource(cache, factory, descriptor));
+				}
+				return createdResourceLease;
+			});
+		} else {
+			cache.recordHit();
+		}
+		return recordLease(resourceLease);
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a cached {@linkplain Resource} of arbitrary type.
+	 *
+	 * @param <R> the actual resource type.
+	 * @param <D> the actual descriptor type.
+	 * @param type the type of the resource to acquire.
+	 * @param descriptor the descriptor describing the resource to acquire.
+	 * @return the {@linkplain ResourceLease} for the cached resource or {@code null} if not yet cached.
+	 */
+	@Nullable
+	protected <R extends Resource, @NonNull D> ResourceLease<R> acquireCachedResource(Class<R> type, D descriptor) {
+		return cache(type).acquire(descriptor);
+	}
+
+	/**
+	 * Gets a system {@linkplain Cursor} resource.
+	 *
+	 * @param style the style of the cursor to get (see {@linkplain Cursor#Cursor(Device, int)}).
+	 * @return the requested {@linkplain Cursor} resource.
+	 */
+	public Cursor getCursor(int style) {
+		return getResource(Cursor.class, Integer.valueOf(style), (device, descriptor) -> new Cursor(device, descriptor));
 	}
 
 	/**
@@ -82,6 +433,64 @@ public abstract class ResourceTracker {
 		return getColor(rgb, this::createColorFromRgb);
 	}
 
+	/**
+	 * Gets a {@linkplain Color} resource for a packed RGB value.
+	 * <p>
+	 * This function (like {@linkplain #getColor(int, int, int, int)}) does not allocate any objects for already cached
+	 * colors and is therefore suitable for frequent use (e.g. during painting).
+	 *
+	 * @param packedRgb the packed RGB value ({@code 0xRRGGBB}) describing the color to get.
+	 * @return the requested {@linkplain Color} resource.
+	 */
+	public Color getColor(int packedRgb) {
+		return getColor((packedRgb >>> 16) & 0xff, (packedRgb >>> 8) & 0xff, packedRgb & 0xff, 0xff);
+	}
+
+	/**
+	 * Gets a {@linkplain Color} resource for the given color components.
+	 * <p>
+	 * This function does not allocate any objects for already cached colors and is therefore suitable for frequent use
+	 * (e.g. during painting). This holds for the first few thousand distinct colors; any further colors are looked up
+	 * via their {@linkplain RGB} or {@linkplain RGBA} descriptor. Opaque colors share their {@linkplain Color} resource
+	 * with the ones returned by {@linkplain #getColor(RGB)}.
+	 *
+	 * @param red the red component (in the range [0, 255]).
+	 * @param green the green component (in the range [0, 255]).
+	 * @param blue the blue component (in the range [0, 255]).
+	 * @param alpha the alpha component (in the range [0, 255]).
+	 * @return the requested {@linkplain Color} resource.
+	 */
+	public Color getColor(int red, int green, int blue, int alpha) {
+		if (((red | green | blue | alpha) & ~0xff) != 0) {
+			SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+		}
+
+		int packedColor = (alpha << 24) | (red << 16) | (green << 8) | blue;
+		Color color = getCachedColor(packedColor);
+
+		if (color == null) {
+			color = (alpha == 0xff ? getColor(new RGB(red, green, blue))
+					: getColor(new RGBA(red, green, blue, alpha), this::createColorFromRgba));
+			this.packedColors.put(packedColor, color);
+		} else {
+			this.colorCache.recordHit();
+		}
+		return color;
+	}
+
+	/**
+	 * Gets a cached {@linkplain Color} resource for a packed ARGB value.
+	 *
+	 * @param packedColor the packed ARGB value ({@code 0xAARRGGBB}) describing the color to get.
+	 * @return the cached {@linkplain Color} resource or {@code null} if not yet cached.
+	 */
+	@Nullable
+	protected Color getCachedColor(int packedColor) {
+		Color color = this.packedColors.get(packedColor);
+
+		return (color != null && !color.isDisposed() ? color : null);
+	}
+
 	/**
 	 * Gets a {@linkplain Color} resource for a given descriptor.
 	 *
@@ -91,13 +500,7 @@ public abstract class ResourceTracker {
 	 * @return the requested {@linkplain Color} resource.
 	 */
 	public <@NonNull D> Color getColor(D descriptor, ResourceFactory<D, Color> factory) {
-		Color cachedColor = getCachedColor(descriptor);
-
-		if (cachedColor == null) {
-			cachedColor = factory.create(getDevice(), descriptor);
-			this.colorCache.put(descriptor, cachedColor);
-		}
-		return cachedColor;
+		return getResource(Color.class, descriptor, factory);
 	}
 
 	/**
@@ -109,13 +512,52 @@ public abstract class ResourceTracker {
 	 */
 	@Nullable
 	protected <@NonNull D> Color getCachedColor(D descriptor) {
-		return this.colorCache.get(descriptor);
+		return getCachedResource(Color.class, descriptor);
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Color} resource.
+	 *
+	 * @param rgb the {@linkplain RGB} object describing the color to acquire.
+	 * @return the {@linkplain ResourceLease} for the requested {@linkplain Color} resource.
+	 */
+	public ResourceLease<Color> acquireColor(RGB rgb) {
+		return acquireColor(rgb, this::createColorFromRgb);
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Color} resource for a given descriptor.
+	 *
+	 * @param <D> the actual descriptor type.
+	 * @param descriptor the descriptor describing the color to acquire.
+	 * @param factory the factory to use for {@linkplain Color} resource creation.
+	 * @return the {@linkplain ResourceLease} for the requested {@linkplain Color} resource.
+	 */
+	public <@NonNull D> ResourceLease<Color> acquireColor(D descriptor, ResourceFactory<D, Color> factory) {
+		return acquireResource(Color.class, descriptor, factory);
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a cached {@linkplain Color} resource.
+	 *
+	 * @param <D> the actual descriptor type.
+	 * @param descriptor the descriptor describing the color to acquire.
+	 * @return the {@linkplain ResourceLease} for the cached {@linkplain Color} resource or {@code null} if not yet
+	 * cached.
+	 */
+	@Nullable
+	protected <@NonNull D> ResourceLease<Color> acquireCachedColor(D descriptor) {
+		return acquireCachedResource(Color.class, descriptor);
 	}
 
 	private Color createColorFromRgb(Device device, RGB descriptor) {
 		return new Color(device, descriptor);
 	}
 
+	private Color createColorFromRgba(Device device, RGBA descriptor) {
+		return new Color(device, descriptor);
+	}
+
 	/**
 	 * Gets a {@linkplain Font} resource.
 	 *
@@ -135,13 +577,7 @@ public abstract class ResourceTracker {
 	 * @return the requested {@linkplain Font} resource.
 	 */
 	public <@NonNull D> Font getFont(D descriptor, ResourceFactory<D, Font> factory) {
-		Font cachedFont = getCachedFont(descriptor);
-
-		if (cachedFont == null) {
-			cachedFont = factory.create(getDevice(), descriptor);
-			this.fontCache.put(descriptor, cachedFont);
-		}
-		return cachedFont;
+		return getResource(Font.class, descriptor, factory);
 	}
 
 	/**
@@ -153,13 +589,96 @@ public abstract class ResourceTracker {
 	 */
 	@Nullable
 	protected <@NonNull D> Font getCachedFont(D descriptor) {
-		return this.fontCache.get(descriptor);
+		return getCachedResource(Font.class, descriptor);
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Font} resource.
+	 *
+	 * @param fontData the {@linkplain FontData} object describing the font to acquire.
+	 * @return the {@linkplain ResourceLease} for the requested {@linkplain Font} resource.
+	 */
+	public ResourceLease<Font> acquireFont(FontData fontData) {
+		return acquireFont(fontData, this::createFontFromFontData);
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Font} resource for a given descriptor.
+	 *
+	 * @param <D> the actual descriptor type.
+	 * @param descriptor the descriptor describing the font to acquire.
+	 * @param factory the factory to use for {@linkplain Font} resource creation.
+	 * @return the {@linkplain ResourceLease} for the requested {@linkplain Font} resource.
+	 */
+	public <@NonNull D> ResourceLease<Font> acquireFont(D descriptor, ResourceFactory<D, Font> factory) {
+		return acquireResource(Font.class, descriptor, factory);
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a cached {@linkplain Font} resource.
+	 *
+	 * @param <D> the actual descriptor type.
+	 * @param descriptor the descriptor describing the font to acquire.
+	 * @return the {@linkplain ResourceLease} for the cached {@linkplain Font} resource or {@code null} if not yet
+	 * cached.
+	 */
+	@Nullable
+	protected <@NonNull D> ResourceLease<Font> acquireCachedFont(D descriptor) {
+		return acquireCachedResource(Font.class, descriptor);
 	}
 
 	private Font createFontFromFontData(Device device, FontData fontData) {
 		return new Font(device, fontData);
 	}
 
+	/**
+	 * Gets a {@linkplain Font} resource derived from an existing {@linkplain Font}.
+	 * <p>
+	 * Derived fonts are cached by their base font's {@linkplain FontData} and derivation parameters. Hence repeated
+	 * requests for the same variant (e.g. the bold variant of a control's font) always share the same
+	 * {@linkplain Font} resource, even if they are derived from different but equivalent base fonts. The cache entry
+	 * does not refer to the base font, which may therefore be disposed at any time.
+	 *
+	 * @param baseFont the {@linkplain Font} to derive from.
+	 * @param style the style bits to add to the base font's style (any combination of {@linkplain SWT#BOLD} and
+	 * {@linkplain SWT#ITALIC}).
+	 * @param heightDelta the height (in points) to add to the base font's height.
+	 * @return the requested {@linkplain Font} resource.
+	 */
+	public Font getDerivedFont(Font baseFont, int style, int heightDelta) {
+		return getFont(new DerivedFont(baseFont, style, heightDelta), this::createDerivedFont);
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Font} resource derived from an existing
+	 * {@linkplain Font}.
+	 *
+	 * @param baseFont the {@linkplain Font} to derive from.
+	 * @param style the style bits to add to the base font's style (any combination of {@linkplain SWT#BOLD} and
+	 * {@linkplain SWT#ITALIC}).
+	 * @param heightDelta the height (in points) to add to the base font's height.
+	 * @return the {@linkplain ResourceLease} for the requested {@linkplain Font} resource.
+	 * @see #getDerivedFont(Font, int, int)
+	 */
+	public ResourceLease<Font> acquireDerivedFont(Font baseFont, int style, int heightDelta) {
+		return acquireFont(new DerivedFont(baseFont, style, heightDelta), this::createDerivedFont);
+	}
+
+	private Font createDerivedFont(Device device, DerivedFont derivedFont) {
+		FontData[] baseFontDatas = derivedFont.baseFontDatas();
+		FontData[] fontDatas = new FontData[baseFontDatas.length];
+
+		for (int fontDataIndex = 0; fontDataIndex < baseFontDatas.length; fontDataIndex++) {
+			// Work on a copy, as the base font data is part of the cache key
+			FontData fontData = new FontData(baseFontDatas[fontDataIndex].toString());
+
+			fontData.setStyle(fontData.getStyle() | derivedFont.style());
+			fontData.setHeight(Math.max(1, fontData.getHeight() + derivedFont.heightDelta()));
+			fontDatas[fontDataIndex] = fontData;
+		}
+		return new Font(device, fontDatas);
+	}
+
 	/**
 	 * Gets a {@linkplain Image} resource.
 	 *
@@ -168,33 +687,71 @@ public abstract class ResourceTracker {
 	 * @return the requested {@linkplain Image} resource.
 	 */
 	public Image getImage(Class<?> clazz, String name) {
-		URL imageUrl = clazz.getResource(name);
-
-		if (imageUrl == null) {
-			throw new IllegalArgumentException("Unknown image resource: " + clazz.getName() + ":" + name);
-		}
-		return getImage(imageUrl);
+		return getImage(ImageKey.of(clazz, name));
 	}
 
 	/**
 	 * Gets multiple {@linkplain Image} resources.
+	 * <p>
+	 * The image data of all images not yet cached is decoded concurrently and the native images are created in a single
+	 * step on the {@linkplain Device}'s thread afterwards. The calling thread takes part in decoding: any image not yet
+	 * picked up by a background worker is decoded on the calling thread. Hence the call only waits for decoding work
+	 * that is already in progress and never for work queued behind unrelated preparation requests.
 	 *
 	 * @param clazz the {@linkplain Class} to use for resource access.
 	 * @param names the names of the {@linkplain Image} resources to get.
 	 * @return the requested {@linkplain Image} resources.
 	 */
 	public Image[] getImages(Class<?> clazz, Iterable<String> names) {
-		List<Image> images = new ArrayList<>();
+		ImageKey[] imageKeys = StreamSupport.stream(names.spliterator(), false).map(name -> ImageKey.of(clazz, name))
+				.toArray(ImageKey[]::new);
+		Image[] images = new Image[imageKeys.length];
+		ImagePreparation[] imagePreparations = new ImagePreparation[imageKeys.length];
+		int pendingCount = 0;
+
+		// Decode all not yet cached images concurrently
+		for (int imageIndex = 0; imageIndex < imageKeys.length; imageIndex++) {
+			ImageKey imageKey = imageKeys[imageIndex];
+			Image cachedImage = getCachedImage(imageKey);
+
+			if (cachedImage != null) {
+				this.imageCache.recordHit();
+				images[imageIndex] = cachedImage;
+			} else {
+				ImagePreparation imagePreparation = new ImagePreparation(imageStore(), imageKey);
+
+				// The first image is decoded on the calling thread anyway
+				if (pendingCount > 0) {
+					ResourceWorkers.executor().execute(imagePreparation);
+				}
+				imagePreparations[imageIndex] = imagePreparation;
+				pendingCount++;
+			}
+		}
+		// ...and create the corresponding native images in a single device thread step
+		if (pendingCount > 0) {
+			ScaledImageResourceProvider[] preparedImageProviders = new ScaledImageResourceProvider[imageKeys.length];
 
-		for (String name : names) {
-			URL imageUrl = clazz.getResource(name);
+			for (int imageIndex = 0; imageIndex < imageKeys.length; imageIndex++) {
+				ImagePreparation imagePreparation = imagePreparations[imageIndex];
 
-			if (imageUrl == null) {
-				throw new IllegalArgumentException("Unknown image resource: " + clazz.getName() + ":" + name);
+				if (imagePreparation != null) {
+					preparedImageProviders[imageIndex] = imagePreparation.join();
+				}
 			}
-			images.add(getImage(imageUrl));
+			runCreation(() -> {
+				for (int imageIndex = 0; imageIndex < imageKeys.length; imageIndex++) {
+					ScaledImageResourceProvider imageProvider = preparedImageProviders[imageIndex];
+
+					if (imageProvider != null) {
+						images[imageIndex] = getImage(imageKeys[imageIndex],
+								(device, descriptor) -> imageProvider.createImage(device));
+					}
+				}
+				return images;
+			});
 		}
-		return images.toArray(new @Nullable Image[images.size()]);
+		return images;
 	}
 
 	/**
@@ -204,65 +761,804 @@ public abstract class ResourceTracker {
 	 * @return the requested {@linkplain Image} resource.
 	 */
 	public Image getImage(URL imageUrl) {
-		return getImage(imageUrl, ScaledImageResourceProvider::createImageFromUrl);
+		return getImage(ImageKey.of(imageUrl));
 	}
 
 	/**
-	 * Gets a {@linkplain Image} resource for a given descriptor.
+	 * Gets a {@linkplain Image} resource.
 	 *
-	 * @param <D> the actual descriptor type.
-	 * @param descriptor the descriptor describing the image to get.
-	 * @param factory the factory to use for {@linkplain Image} resource creation.
+	 * @param imageKey the {@linkplain ImageKey} object describing the image to get.
 	 * @return the requested {@linkplain Image} resource.
 	 */
-	public <@NonNull D> Image getImage(D descriptor, ResourceFactory<D, Image> factory) {
-		Image cachedImage = getCachedImage(descriptor);
+	public Image getImage(ImageKey imageKey) {
+		Image cachedImage = getCachedImage(imageKey);
 
 		if (cachedImage == null) {
-			cachedImage = factory.create(getDevice(), descriptor);
-			this.imageCache.put(descriptor, cachedImage);
+			// Decode the image data on the calling thread and only create the native image on the device thread
+			ScaledImageResourceProvider imageProvider = imageStore().prepare(imageKey);
+
+			cachedImage = getImage(imageKey, (device, descriptor) -> imageProvider.createImage(device));
+		} else {
+			this.imageCache.recordHit();
 		}
 		return cachedImage;
 	}
 
 	/**
-	 * Gets a cached {@linkplain Image} resource.
+	 * Gets a {@linkplain Image} resource from an {@linkplain ImageAtlas}.
+	 * <p>
+	 * The atlas image is decoded only once (on the calling thread) and every requested icon is sliced into its own
+	 * {@linkplain Image} resource, which is cached under the icon's name.
 	 *
-	 * @param <D> the actual descriptor type.
-	 * @param descriptor the descriptor describing the color to get.
-	 * @return the cached {@linkplain Image} resource or {@code null} if not yet cached.
+	 * @param atlas the {@linkplain ImageAtlas} containing the image.
+	 * @param name the name of the {@linkplain Image} resource to get.
+	 * @return the requested {@linkplain Image} resource.
 	 */
-	@Nullable
-	protected <@NonNull D> Image getCachedImage(D descriptor) {
-		return this.imageCache.get(descriptor);
+	public Image getImage(ImageAtlas atlas, String name) {
+		AtlasIcon atlasIcon = getAtlasIcon(atlas, name);
+		Image cachedImage = getCachedImage(atlasIcon);
+
+		if (cachedImage == null) {
+			ScaledImageResourceProvider.Store imageStore = imageStore();
+
+			atlas.prepare(imageStore);
+			cachedImage = getImage(atlasIcon, (device, descriptor) -> atlas.createImage(device, imageStore, name));
+		} else {
+			this.imageCache.recordHit();
+		}
+		return cachedImage;
 	}
 
 	/**
-	 * Gets the {@linkplain ResourceTracker} instance for the given {@linkplain Device}.
+	 * Gets multiple {@linkplain Image} resources from an {@linkplain ImageAtlas}.
 	 *
-	 * @param device the {@linkplain Device} to get the {@linkplain ResourceTracker} instance for.
-	 * @return the requested {@linkplain ResourceTracker} instance.
+	 * @param atlas the {@linkplain ImageAtlas} containing the images.
+	 * @param names the names of the {@linkplain Image} resources to get.
+	 * @return the requested {@linkplain Image} resources.
+	 * @see #getImage(ImageAtlas, String)
 	 */
-	public static ResourceTracker forDevice(Device device) {
-		return DEVICE_TRACKER.computeIfAbsent(device, DeviceResourceTracker::new);
+	public Image[] getImages(ImageAtlas atlas, Iterable<String> names) {
+		return StreamSupport.stream(names.spliterator(), false).map(name -> getImage(atlas, name))
+				.toArray(Image[]::new);
 	}
 
 	/**
-	 * Creates a {@linkplain ResourceTracker} instance for the given {@linkplain Shell}.
+	 * Gets a {@linkplain Image} resource asynchronously.
+	 * <p>
+	 * The image data is decoded by a background worker and the actual {@linkplain Image} resource is created on the
+	 * {@linkplain Device}'s thread afterwards. Hence any dependent action of the returned {@linkplain CompletableFuture}
+	 * is executed on the {@linkplain Device}'s thread. Concurrent requests for the same image share the same
+	 * {@linkplain CompletableFuture}.
 	 *
-	 * @param shell the {@linkplain Shell} to get the {@linkplain ResourceTracker} instance for.
-	 * @return the requested {@linkplain ResourceTracker} instance.
+	 * @param imageUrl the {@linkplain URL} object describing the image to get.
+	 * @return the {@linkplain CompletableFuture} providing the requested {@linkplain Image} resource.
 	 */
-	public ResourceTracker forShell(Shell shell) {
-		return new ShellResourceTracker(shell);
-	}
+	public CompletableFuture<Image> getImageAsync(URL imageUrl) {
+		ImageKey imageKey = ImageKey.of(imageUrl);
+		Image cachedImage = getCachedImage(imageKey);
+		CompletableFuture<Image> imageFuture;
 
-	private static class DeviceResourceTracker extends ResourceTracker {
+		if (cachedImage != null) {
+			this.imageCache.recordHit();
+			imageFuture = CompletableFuture.completedFuture(cachedImage);
+		} else {
+			imageFuture = this.pendingImages.get(imageKey);
+			if (imageFuture == null) {
+				CompletableFuture<Image> loadingImageFuture = new CompletableFuture<>();
 
-		private final Device device;
+				imageFuture = this.pendingImages.putIfAbsent(imageKey, loadingImageFuture);
+				if (imageFuture == null) {
+					imageFuture = loadingImageFuture;
+					ResourceWorkers.executor().execute(() -> loadImageAsync(imageKey, loadingImageFuture));
+				}
+			}
+		}
+		return imageFuture;
+	}
 
-		DeviceResourceTracker(Device device) {
-			this.device = device;
+	/**
+	 * Gets a {@linkplain Image} resource asynchronously and returns a placeholder until it is available.
+	 * <p>
+	 * If the requested {@linkplain Image} resource is already cached, it is returned directly. Otherwise the given
+	 * placeholder is returned and the given {@linkplain Consumer} is invoked on the {@linkplain Device}'s thread as soon
+	 * as the requested image has been loaded.
+	 *
+	 * @param imageUrl the {@linkplain URL} object describing the image to get.
+	 * @param placeholder the {@linkplain Image} to return while the requested image is being loaded.
+	 * @param consumer the {@linkplain Consumer} to invoke with the loaded image.
+	 * @return the requested {@linkplain Image} resource if already cached or the given placeholder.
+	 * @see #getImageAsync(URL)
+	 */
+	public Image getImageAsync(URL imageUrl, Image placeholder, Consumer<Image> consumer) {
+		Image image = getCachedImage(ImageKey.of(imageUrl));
+
+		if (image == null) {
+			image = placeholder;
+			getImageAsync(imageUrl).thenAccept(consumer).exceptionally(exception -> {
+				LOG.warning(exception, "Failed to load image ''{0}''", imageUrl);
+				return null;
+			});
+		} else {
+			this.imageCache.recordHit();
+		}
+		return image;
+	}
+
+	private void loadImageAsync(ImageKey imageKey, CompletableFuture<Image> imageFuture) {
+		try {
+			ScaledImageResourceProvider imageProvider = imageStore().prepare(imageKey);
+
+			runOnDevice(() -> {
+				try {
+					Image image = getImage(imageKey, (imageDevice, descriptor) -> imageProvider.createImage(imageDevice));
+
+					this.pendingImages.remove(imageKey, imageFuture);
+					imageFuture.complete(image);
+				} catch (RuntimeException e) {
+					this.pendingImages.remove(imageKey, imageFuture);
+					imageFuture.completeExceptionally(e);
+				}
+			});
+		} catch (RuntimeException e) {
+			this.pendingImages.remove(imageKey, imageFuture);
+			imageFuture.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Preloads the resources listed in a {@linkplain ResourceManifest}.
+	 * <p>
+	 * The image data of all listed images is decoded in parallel by background workers. Afterwards all native
+	 * resources are created in a single batch on the {@linkplain Device}'s thread. Progress is reported after every
+	 * decoded image as well as after every created resource. Images failing to load are logged and skipped.
+	 *
+	 * @param manifest the {@linkplain ResourceManifest} listing the resources to preload.
+	 * @param listener the optional {@linkplain PreloadProgressListener} to report the progress to.
+	 * @return the {@linkplain CompletableFuture} completing as soon as all resources have been loaded.
+	 */
+	public CompletableFuture<Void> preload(ResourceManifest manifest, @Nullable PreloadProgressListener listener) {
+		List<URL> imageUrls = manifest.imageUrls();
+		int total = imageUrls.size() + manifest.size();
+		AtomicInteger completed = new AtomicInteger();
+		List<CompletableFuture<Optional<ScaledImageResourceProvider>>> imageProviders = new ArrayList<>(
+				imageUrls.size());
+
+		for (URL imageUrl : imageUrls) {
+			imageProviders.add(CompletableFuture
+					.supplyAsync(() -> preloadImageData(imageUrl), ResourceWorkers.executor()).whenComplete(
+							(imageProvider, exception) -> reportPreloadProgress(listener, completed, total, true)));
+		}
+
+		CompletableFuture<Void> preloadFuture = new CompletableFuture<>();
+
+		CompletableFuture.allOf(imageProviders.toArray(new CompletableFuture<?>[imageProviders.size()]))
+				.whenComplete((ignored, exception) -> runOnDevice(() -> {
+					try {
+						for (int imageIndex = 0; imageIndex < imageUrls.size(); imageIndex++) {
+							Optional<ScaledImageResourceProvider> imageProvider = imageProviders.get(imageIndex).join();
+
+							if (imageProvider.isPresent()) {
+								getImage(ImageKey.of(imageUrls.get(imageIndex)),
+										(device, descriptor) -> imageProvider.get().createImage(device));
+							}
+							reportPreloadProgress(listener, completed, total, false);
+						}
+						for (FontData fontData : manifest.fontDatas()) {
+							getFont(fontData);
+							reportPreloadProgress(listener, completed, total, false);
+						}
+						for (RGB rgb : manifest.rgbs()) {
+							getColor(rgb);
+							reportPreloadProgress(listener, completed, total, false);
+						}
+						preloadFuture.complete(null);
+					} catch (RuntimeException e) {
+						preloadFuture.completeExceptionally(e);
+					}
+				}));
+		return preloadFuture;
+	}
+
+	private Optional<ScaledImageResourceProvider> preloadImageData(URL imageUrl) {
+		Optional<ScaledImageResourceProvider> imageProvider = Optional.empty();
+
+		if (getCachedImage(ImageKey.of(imageUrl)) == null) {
+			try {
+				imageProvider = Optional.of(imageStore().prepare(ImageKey.of(imageUrl)));
+			} catch (RuntimeException e) {
+				LOG.warning(e, "Failed to preload image ''{0}''", imageUrl);
+			}
+		}
+		return imageProvider;
+	}
+
+	private void reportPreloadProgress(@Nullable PreloadProgressListener listener, AtomicInteger completed, int total,
+			boolean dispatch) {
+		if (listener != null) {
+			// Count within the report itself, so the reported progress increases in the order the reports are run
+			Runnable report = () -> listener.onProgress(completed.incrementAndGet(), total);
+
+			if (dispatch) {
+				runOnDevice(report);
+			} else {
+				report.run();
+			}
+		}
+	}
+
+	/**
+	 * Gets a {@linkplain Image} resource derived from an image resource.
+	 * <p>
+	 * The derived image is cached per base image and transformation. Hence a derived image (e.g. the disabled variant
+	 * of a tool item image) is only computed once per tracker. The transformation is applied on the calling thread
+	 * (only the native image is created on the {@linkplain Device}'s thread). Image data for any other zoom level
+	 * requested by the platform later on is derived from the base image's data again. As the derived image does not
+	 * refer to the base {@linkplain Image} resource, the latter may be evicted or disposed at any time.
+	 *
+	 * @param baseImageKey the {@linkplain ImageKey} of the image to derive from.
+	 * @param transform the {@linkplain ImageTransform} to apply to the base image.
+	 * @return the requested {@linkplain Image} resource.
+	 */
+	public Image getDerivedImage(ImageKey baseImageKey, ImageTransform transform) {
+		DerivedImage derivedImage = new DerivedImage(baseImageKey, transform);
+		Image cachedImage = getCachedImage(derivedImage);
+
+		if (cachedImage == null) {
+			ScaledImageResourceProvider imageProvider = imageStore().prepare(baseImageKey, transform);
+
+			cachedImage = getImage(derivedImage, (device, descriptor) -> imageProvider.createImage(device));
+		} else {
+			this.imageCache.recordHit();
+		}
+		return cachedImage;
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Image} resource derived from an image resource.
+	 *
+	 * @param baseImageKey the {@linkplain ImageKey} of the image to derive from.
+	 * @param transform the {@linkplain ImageTransform} to apply to the base image.
+	 * @return the {@linkplain ResourceLease} for the requested {@linkplain Image} resource.
+	 * @see #getDerivedImage(ImageKey, ImageTransform)
+	 */
+	public ResourceLease<Image> acquireDerivedImage(ImageKey baseImageKey, ImageTransform transform) {
+		DerivedImage derivedImage = new DerivedImage(baseImageKey, transform);
+		ResourceLease<Image> imageLease = acquireCachedImage(derivedImage);
+
+		if (imageLease == null) {
+			ScaledImageResourceProvider imageProvider = imageStore().prepare(baseImageKey, transform);
+
+			imageLease = acquireImage(derivedImage, (device, descriptor) -> imageProvider.createImage(device));
+		} else {
+			this.imageCache.recordHit();
+			imageLease = recordLease(imageLease);
+		}
+		return imageLease;
+	}
+
+	/**
+	 * Gets a {@linkplain Image} resource for a given descriptor.
+	 *
+	 * @param <D> the actual descriptor type.
+	 * @param descriptor the descriptor describing the image to get.
+	 * @param factory the factory to use for {@linkplain Image} resource creation.
+	 * @return the requested {@linkplain Image} resource.
+	 */
+	public <@NonNull D> Image getImage(D descriptor, ResourceFactory<D, Image> factory) {
+		return getResource(Image.class, descriptor, factory);
+	}
+
+	/**
+	 * Gets a cached {@linkplain Image} resource.
+	 *
+	 * @param <D> the actual descriptor type.
+	 * @param descriptor the descriptor describing the color to get.
+	 * @return the cached {@linkplain Image} resource or {@code null} if not yet cached.
+	 */
+	@Nullable
+	protected <@NonNull D> Image getCachedImage(D descriptor) {
+		return getCachedResource(Image.class, descriptor);
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Image} resource.
+	 *
+	 * @param clazz the {@linkplain Class} to use for resource access.
+	 * @param name the name of the {@linkplain Image} resource to acquire.
+	 * @return the {@linkplain ResourceLease} for the requested {@linkplain Image} resource.
+	 */
+	public ResourceLease<Image> acquireImage(Class<?> clazz, String name) {
+		return acquireImage(ImageKey.of(clazz, name));
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Image} resource.
+	 *
+	 * @param imageUrl the {@linkplain URL} object describing the image to acquire.
+	 * @return the {@linkplain ResourceLease} for the requested {@linkplain Image} resource.
+	 */
+	public ResourceLease<Image> acquireImage(URL imageUrl) {
+		return acquireImage(ImageKey.of(imageUrl));
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Image} resource.
+	 *
+	 * @param imageKey the {@linkplain ImageKey} object describing the image to acquire.
+	 * @return the {@linkplain ResourceLease} for the requested {@linkplain Image} resource.
+	 */
+	public ResourceLease<Image> acquireImage(ImageKey imageKey) {
+		ResourceLease<Image> imageLease = acquireCachedImage(imageKey);
+
+		if (imageLease == null) {
+			// Decode the image data on the calling thread and only create the native image on the device thread
+			ScaledImageResourceProvider imageProvider = imageStore().prepare(imageKey);
+
+			imageLease = acquireImage(imageKey, (device, descriptor) -> imageProvider.createImage(device));
+		} else {
+			this.imageCache.recordHit();
+			imageLease = recordLease(imageLease);
+		}
+		return imageLease;
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Image} resource from an {@linkplain ImageAtlas}.
+	 *
+	 * @param atlas the {@linkplain ImageAtlas} containing the image.
+	 * @param name the name of the {@linkplain Image} resource to acquire.
+	 * @return the {@linkplain ResourceLease} for the requested {@linkplain Image} resource.
+	 * @see #getImage(ImageAtlas, String)
+	 */
+	public ResourceLease<Image> acquireImage(ImageAtlas atlas, String name) {
+		AtlasIcon atlasIcon = getAtlasIcon(atlas, name);
+		ResourceLease<Image> imageLease = acquireCachedImage(atlasIcon);
+
+		if (imageLease == null) {
+			ScaledImageResourceProvider.Store imageStore = imageStore();
+
+			atlas.prepare(imageStore);
+			imageLease = acquireImage(atlasIcon, (device, descriptor) -> atlas.createImage(device, imageStore, name));
+		} else {
+			this.imageCache.recordHit();
+			imageLease = recordLease(imageLease);
+		}
+		return imageLease;
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a {@linkplain Image} resource for a given descriptor.
+	 *
+	 * @param <D> the actual descriptor type.
+	 * @param descriptor the descriptor describing the image to acquire.
+	 * @param factory the factory to use for {@linkplain Image} resource creation.
+	 * @return the {@linkplain ResourceLease} for the requested {@linkplain Image} resource.
+	 */
+	public <@NonNull D> ResourceLease<Image> acquireImage(D descriptor, ResourceFactory<D, Image> factory) {
+		return acquireResource(Image.class, descriptor, factory);
+	}
+
+	/**
+	 * Acquires a {@linkplain ResourceLease} for a cached {@linkplain Image} resource.
+	 *
+	 * @param <D> the actual descriptor type.
+	 * @param descriptor the descriptor describing the image to acquire.
+	 * @return the {@linkplain ResourceLease} for the cached {@linkplain Image} resource or {@code null} if not yet
+	 * cached.
+	 */
+	@Nullable
+	protected <@NonNull D> ResourceLease<Image> acquireCachedImage(D descriptor) {
+		return acquireCachedResource(Image.class, descriptor);
+	}
+
+	static URL getImageUrl(Class<?> clazz, String name) {
+		URL imageUrl = clazz.getResource(name);
+
+		if (imageUrl == null) {
+			throw new IllegalArgumentException("Unknown image resource: " + clazz.getName() + ":" + name);
+		}
+		return imageUrl;
+	}
+
+	private static AtlasIcon getAtlasIcon(ImageAtlas atlas, String name) {
+		if (!atlas.contains(name)) {
+			throw new IllegalArgumentException("Unknown atlas icon: " + atlas.getImageUrl() + ":" + name);
+		}
+		return new AtlasIcon(atlas.imageKey(), name);
+	}
+
+	private static long imageBytes(Image image) {
+		Rectangle imageBounds = image.getBounds();
+
+		// Native images are backed by 32 bit pixel buffers on all supported platforms
+		return (long) imageBounds.width * imageBounds.height * NATIVE_IMAGE_DEPTH / 8;
+	}
+
+	private <R extends Resource> ResourceCache<R> registerCache(ResourceCache<R> cache) {
+		this.caches.put(cache.getType(), cache);
+		return cache;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <R extends Resource> ResourceCache<R> cache(Class<R> type) {
+		return (ResourceCache<R>) this.caches.computeIfAbsent(type, key -> new ResourceCache<>(type, this::runDisposal));
+	}
+
+	private <@NonNull D, R extends Resource> R createResource(ResourceCache<R> cache, ResourceFactory<D, R> factory,
+			D descriptor) {
+		long createStart = System.nanoTime();
+		R resource = factory.create(getDevice(), descriptor);
+
+		cache.recordCreate(System.nanoTime() - createStart);
+		ResourceLeakDetector.recordResource(this, resource);
+		return resource;
+	}
+
+	private <R extends Resource> ResourceLease<R> recordLease(ResourceLease<R> lease) {
+		ResourceLeakDetector.recordLease(this, lease);
+		return lease;
+	}
+
+	private void runOnDevice(Runnable runnable) {
+		Device device = getDevice();
+
+		if (device instanceof Display) {
+			((Display) device).asyncExec(runnable);
+		} else {
+			runnable.run();
+		}
+	}
+
+	private void runDisposal(Runnable disposal) {
+		Device device = getDevice();
+
+		if (device instanceof Display) {
+			Display display = (Display) device;
+
+			try {
+				if (Thread.currentThread().equals(display.getThread())) {
+					disposal.run();
+				} else {
+					display.asyncExec(disposal);
+				}
+			} catch (SWTException e) {
+				// A disposed device has already released all of its resources
+				if (e.code != SWT.ERROR_DEVICE_DISPOSED) {
+					throw e;
+				}
+			}
+		} else {
+			disposal.run();
+		}
+	}
+
+	private <T> T runCreation(Supplier<T> creation) {
+		Device device = getDevice();
+		T result;
+
+		if (device instanceof Display && !Thread.currentThread().equals(((Display) device).getThread())) {
+			AtomicReference<@Nullable T> resultHolder = new AtomicReference<>();
+
+			((Display) device).syncExec(() -> resultHolder.set(runCreation(creation)));
+			result = Objects.requireNonNull(resultHolder.get());
+		} else {
+			synchronized (this.creationLock) {
+				result = creation.get();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Sets the directory to use for persistent caching of decoded image data.
+	 * <p>
+	 * If set, image data decoded for {@linkplain URL} based images is stored in the given directory and re-used by
+	 * subsequent loads of the same image resource (as long as the resource's timestamp and size are unchanged). The
+	 * cache is shared by all {@linkplain ResourceTracker} instances and limited to a default size of 64 MiB.
+	 *
+	 * @param cacheDirectory the cache directory to use (may be {@code null} to disable the cache).
+	 * @throws IOException if the cache directory cannot be created.
+	 * @see #setImageDataCacheDirectory(Path, long)
+	 */
+	public static void setImageDataCacheDirectory(@Nullable Path cacheDirectory) throws IOException {
+		setImageDataCacheDirectory(cacheDirectory, ImageDataDiskCache.DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Sets the directory to use for persistent caching of decoded image data as well as the maximum size of the cache.
+	 * <p>
+	 * Whenever the cache exceeds its maximum size, the least recently used entries are deleted from the cache
+	 * directory.
+	 *
+	 * @param cacheDirectory the cache directory to use (may be {@code null} to disable the cache).
+	 * @param maxSize the maximum number of bytes the cache may occupy.
+	 * @throws IOException if the cache directory cannot be created.
+	 * @see #setImageDataCacheDirectory(Path)
+	 */
+	public static void setImageDataCacheDirectory(@Nullable Path cacheDirectory, long maxSize) throws IOException {
+		ImageDataDiskCache.setDirectory(cacheDirectory, maxSize);
+	}
+
+	/**
+	 * Gets the directory used for persistent caching of decoded image data.
+	 *
+	 * @return the directory used for persistent caching of decoded image data (may be {@code null} if the cache is
+	 * disabled).
+	 */
+	@Nullable
+	public static Path getImageDataCacheDirectory() {
+		return ImageDataDiskCache.getDirectory();
+	}
+
+	/**
+	 * Gets the {@linkplain ResourceTracker} instance for the given {@linkplain Device}.
+	 *
+	 * @param device the {@linkplain Device} to get the {@linkplain ResourceTracker} instance for.
+	 * @return the requested {@linkplain ResourceTracker} instance.
+	 */
+	public static ResourceTracker forDevice(Device device) {
+		ResourceTracker tracker = DEVICE_TRACKER.get(device);
+
+		if (tracker == null) {
+			DeviceResourceTracker createdTracker = new DeviceResourceTracker(device);
+
+			tracker = DEVICE_TRACKER.putIfAbsent(device, createdTracker);
+			if (tracker == null) {
+				tracker = createdTracker;
+				createdTracker.registerLeakReport();
+			}
+		}
+		return tracker;
+	}
+
+	/**
+	 * Creates a {@linkplain ResourceTracker} instance for the given {@linkplain Shell}.
+	 *
+	 * @param shell the {@linkplain Shell} to get the {@linkplain ResourceTracker} instance for.
+	 * @return the requested {@linkplain ResourceTracker} instance.
+	 * @see #forComposite(Composite)
+	 */
+	public ResourceTracker forShell(Shell shell) {
+		return forComposite(shell);
+	}
+
+	/**
+	 * Creates a {@linkplain ResourceTracker} instance for the given {@linkplain Composite}.
+	 * <p>
+	 * All resources created via the returned instance are disposed as soon as the {@linkplain Composite} is disposed.
+	 * Lookups of resources not created via the returned instance fall back to this instance (and its parents). This
+	 * way transient panels (like tab pages or popups) release their resources as soon as they are closed, while shared
+	 * resources are still served from the parent trackers.
+	 *
+	 * @param composite the {@linkplain Composite} to get the {@linkplain ResourceTracker} instance for.
+	 * @return the requested {@linkplain ResourceTracker} instance.
+	 */
+	public ResourceTracker forComposite(Composite composite) {
+		ChildResourceTracker tracker = new ChildResourceTracker();
+
+		composite.addDisposeListener(event -> tracker.disposeAll());
+		return tracker;
+	}
+
+	/**
+	 * Creates a {@linkplain ResourceScope} instance to be used within a try-with-resources block.
+	 * <p>
+	 * All resources created via the returned instance are disposed as soon as the scope is closed. Lookups of
+	 * resources not created via the returned instance fall back to this instance (and its parents).
+	 *
+	 * @return the created {@linkplain ResourceScope} instance.
+	 */
+	public ResourceScope forScope() {
+		return new ChildResourceTracker();
+	}
+
+	private static final class DerivedFont {
+
+		private final FontData[] baseFontDatas;
+		private final int style;
+		private final int heightDelta;
+		private final int hash;
+
+		DerivedFont(Font baseFont, int style, int heightDelta) {
+			this.baseFontDatas = baseFont.getFontData();
+			// Canonicalize the style, so equivalent requests always map to the same descriptor
+			this.style = style & (SWT.BOLD | SWT.ITALIC);
+			this.heightDelta = heightDelta;
+			this.hash = (Arrays.hashCode(this.baseFontDatas) * 31 + this.style) * 31 + this.heightDelta;
+		}
+
+		FontData[] baseFontDatas() {
+			return this.baseFontDatas;
+		}
+
+		int style() {
+			return this.style;
+		}
+
+		int heightDelta() {
+			return this.heightDelta;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			return this == obj || (obj instanceof DerivedFont
+					&& Arrays.equals(this.baseFontDatas, ((DerivedFont) obj).baseFontDatas)
+					&& this.style == ((DerivedFont) obj).style && this.heightDelta == ((DerivedFont) obj).heightDelta);
+		}
+
+	}
+
+	private static final class AtlasIcon {
+
+		private final ImageKey atlasKey;
+		private final String name;
+
+		AtlasIcon(ImageKey atlasKey, String name) {
+			this.atlasKey = atlasKey;
+			this.name = name;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.atlasKey, this.name);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			return this == obj || (obj instanceof AtlasIcon && this.atlasKey.equals(((AtlasIcon) obj).atlasKey)
+					&& this.name.equals(((AtlasIcon) obj).name));
+		}
+
+	}
+
+	private static final class DerivedImage {
+
+		private final ImageKey baseImageKey;
+		private final ImageTransform transform;
+
+		DerivedImage(ImageKey baseImageKey, ImageTransform transform) {
+			this.baseImageKey = baseImageKey;
+			this.transform = transform;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.baseImageKey, this.transform);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			return this == obj
+					|| (obj instanceof DerivedImage && this.baseImageKey.equals(((DerivedImage) obj).baseImageKey)
+							&& this.transform.equals(((DerivedImage) obj).transform));
+		}
+
+	}
+
+	private static final class ImagePreparation implements Runnable {
+
+		private final ScaledImageResourceProvider.Store imageStore;
+		private final ImageKey imageKey;
+		private final AtomicBoolean claimed = new AtomicBoolean();
+		private final CompletableFuture<ScaledImageResourceProvider> imageProvider = new CompletableFuture<>();
+
+		ImagePreparation(ScaledImageResourceProvider.Store imageStore, ImageKey imageKey) {
+			this.imageStore = imageStore;
+			this.imageKey = imageKey;
+		}
+
+		@Override
+		public void run() {
+			if (this.claimed.compareAndSet(false, true)) {
+				prepare();
+			}
+		}
+
+		ScaledImageResourceProvider join() {
+			// Decode on the calling thread unless a worker already started; a queued task becomes a no-op then
+			if (this.claimed.compareAndSet(false, true)) {
+				prepare();
+			}
+
+			ScaledImageResourceProvider preparedImageProvider;
+
+			try {
+				preparedImageProvider = this.imageProvider.join();
+			} catch (CompletionException e) {
+				Throwable cause = e.getCause();
+
+				throw (cause instanceof RuntimeException ? (RuntimeException) cause : e);
+			}
+			return preparedImageProvider;
+		}
+
+		private void prepare() {
+			try {
+				this.imageProvider.complete(this.imageStore.prepare(this.imageKey));
+			} catch (RuntimeException e) {
+				this.imageProvider.completeExceptionally(e);
+			}
+		}
+
+	}
+
+	private class StatisticsMXBean implements ResourceTrackerMXBean {
+
+		StatisticsMXBean() {
+			// Nothing to do here
+		}
+
+		@Override
+		public Map<String, Long> getHits() {
+			return collect(ResourceStatistics::getHits);
+		}
+
+		@Override
+		public Map<String, Long> getMisses() {
+			return collect(ResourceStatistics::getMisses);
+		}
+
+		@Override
+		public Map<String, Long> getLiveHandles() {
+			return collect(ResourceStatistics::getLiveHandles);
+		}
+
+		@Override
+		public Map<String, Long> getEstimatedBytes() {
+			return collect(ResourceStatistics::getEstimatedBytes);
+		}
+
+		@Override
+		public Map<String, Long> getCreateLatencyMean() {
+			return collect(statistics -> statistics.getCreateLatency().getMean());
+		}
+
+		@Override
+		public Map<String, Long> getCreateLatency99() {
+			return collect(statistics -> statistics.getCreateLatency().getPercentile(99.0));
+		}
+
+		@Override
+		public Map<String, Long> getCreateLatencyMax() {
+			return collect(statistics -> statistics.getCreateLatency().getMax());
+		}
+
+		private Map<String, Long> collect(ToLongFunction<ResourceStatistics> value) {
+			Map<String, Long> values = new LinkedHashMap<>();
+
+			for (ResourceStatistics statistics : getStatistics()) {
+				values.put(statistics.getType().getSimpleName(), value.applyAsLong(statistics));
+			}
+			return values;
+		}
+
+	}
+
+	private static class DeviceResourceTracker extends ResourceTracker {
+
+		private final Device device;
+		private final ScaledImageResourceProvider.Store imageStore = new ScaledImageResourceProvider.Store();
+
+		DeviceResourceTracker(Device device) {
+			this.device = device;
+		}
+
+		void registerLeakReport() {
+			if (this.device instanceof Display) {
+				Display display = (Display) this.device;
+				Runnable registerLeakReport = () -> ResourceLeakDetector.registerReport(display);
+
+				if (Thread.currentThread().equals(display.getThread())) {
+					registerLeakReport.run();
+				} else {
+					display.asyncExec(registerLeakReport);
+				}
+			}
 		}
 
 		@Override
@@ -270,18 +1566,24 @@ public abstract class ResourceTracker {
 			return this.device;
 		}
 
+		@Override
+		ScaledImageResourceProvider.Store imageStore() {
+			return this.imageStore;
+		}
+
 		@Override
 		public void disposeAll() {
 			removeDevice(this.device);
 			super.disposeAll();
+			this.imageStore.clear();
 		}
 
 	}
 
-	private class ShellResourceTracker extends ResourceTracker {
+	private class ChildResourceTracker extends ResourceScope {
 
-		ShellResourceTracker(Shell shell) {
-			shell.addDisposeListener(event -> disposeAll());
+		ChildResourceTracker() {
+			// Nothing to do here
 		}
 
 		@Override
@@ -289,28 +1591,36 @@ public abstract class ResourceTracker {
 			return ResourceTracker.this.getDevice();
 		}
 
+		@Override
+		ScaledImageResourceProvider.Store imageStore() {
+			return ResourceTracker.this.imageStore();
+		}
+
 		@Override
 		@Nullable
-		protected <@NonNull D> Color getCachedColor(D descriptor) {
-			Color cachedColor = super.getCachedColor(descriptor);
+		protected <R extends Resource, @NonNull D> R getCachedResource(Class<R> type, D descriptor) {
+			R cachedResource = super.getCachedResource(type, descriptor);
 
-			return (cachedColor != null ? cachedColor : ResourceTracker.this.getCachedColor(descriptor));
+			return (cachedResource != null ? cachedResource
+					: ResourceTracker.this.getCachedResource(type, descriptor));
 		}
 
 		@Override
 		@Nullable
-		protected <@NonNull D> Font getCachedFont(D descriptor) {
-			Font cachedFont = super.getCachedFont(descriptor);
+		protected <R extends Resource, @NonNull D> ResourceLease<R> acquireCachedResource(Class<R> type,
+				D descriptor) {
+			ResourceLease<R> resourceLease = super.acquireCachedResource(type, descriptor);
 
-			return (cachedFont != null ? cachedFont : ResourceTracker.this.getCachedFont(descriptor));
+			return (resourceLease != null ? resourceLease
+					: ResourceTracker.this.acquireCachedResource(type, descriptor));
 		}
 
 		@Override
 		@Nullable
-		protected <@NonNull D> Image getCachedImage(D descriptor) {
-			Image cachedImage = super.getCachedImage(descriptor);
+		protected Color getCachedColor(int packedColor) {
+			Color cachedColor = super.getCachedColor(packedColor);
 
-			return (cachedImage != null ? cachedImage : ResourceTracker.this.getCachedImage(descriptor));
+			return (cachedColor != null ? cachedColor : ResourceTracker.this.getCachedColor(packedColor));
 		}
 
 	}
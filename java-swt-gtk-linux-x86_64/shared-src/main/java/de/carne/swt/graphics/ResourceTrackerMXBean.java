@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.graphics;
+
+import java.util.Map;
+
+/**
+ * JMX management interface exposing the {@linkplain ResourceStatistics} of a {@linkplain ResourceTracker}.
+ * <p>
+ * All attributes are reported per resource type (keyed by the type's simple class name).
+ *
+ * @see ResourceTracker#registerMBean(String)
+ */
+public interface ResourceTrackerMXBean {
+
+	/**
+	 * Gets the number of requests served from the cache.
+	 *
+	 * @return the number of requests served from the cache.
+	 * @see ResourceStatistics#getHits()
+	 */
+	Map<String, Long> getHits();
+
+	/**
+	 * Gets the number of requests which required the creation of a new resource.
+	 *
+	 * @return the number of requests which required the creation of a new resource.
+	 * @see ResourceStatistics#getMisses()
+	 */
+	Map<String, Long> getMisses();
+
+	/**
+	 * Gets the number of currently allocated resource handles.
+	 *
+	 * @return the number of currently allocated resource handles.
+	 * @see ResourceStatistics#getLiveHandles()
+	 */
+	Map<String, Long> getLiveHandles();
+
+	/**
+	 * Gets the estimated number of native bytes occupied by the allocated resource handles.
+	 *
+	 * @return the estimated number of native bytes occupied by the allocated resource handles.
+	 * @see ResourceStatistics#getEstimatedBytes()
+	 */
+	Map<String, Long> getEstimatedBytes();
+
+	/**
+	 * Gets the mean resource creation latency (in nanoseconds).
+	 *
+	 * @return the mean resource creation latency (in nanoseconds).
+	 * @see ResourceStatistics#getCreateLatency()
+	 */
+	Map<String, Long> getCreateLatencyMean();
+
+	/**
+	 * Gets the 99th percentile of the resource creation latency (in nanoseconds).
+	 *
+	 * @return the 99th percentile of the resource creation latency (in nanoseconds).
+	 * @see ResourceStatistics#getCreateLatency()
+	 */
+	Map<String, Long> getCreateLatency99();
+
+	/**
+	 * Gets the maximum resource creation latency (in nanoseconds).
+	 *
+	 * @return the maximum resource creation latency (in nanoseconds).
+	 * @see ResourceStatistics#getCreateLatency()
+	 */
+	Map<String, Long> getCreateLatencyMax();
+
+}
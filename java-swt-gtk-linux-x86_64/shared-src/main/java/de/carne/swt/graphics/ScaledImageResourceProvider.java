@@ -18,7 +18,14 @@ package de.carne.swt.graphics;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.SoftReference;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.swt.SWT;
@@ -29,76 +36,423 @@ import org.eclipse.swt.graphics.ImageDataProvider;
 
 import de.carne.util.Exceptions;
 
+/**
+ * {@linkplain ImageDataProvider} for {@linkplain URL} based images supporting arbitrary zoom levels.
+ * <p>
+ * Zoom levels with a matching image variant (e.g. {@code image@2x.png} for zoom level 200) are served directly from
+ * that variant. All other zoom levels are resampled from the best matching variant.
+ * <p>
+ * Decoded as well as resampled image data is memoized per zoom level (as long as memory permits) and shared by all
+ * providers for the same {@linkplain URL} created from the same {@linkplain Store}. Hence repeated requests (e.g. due
+ * to DPI changes) do not cause any additional I/O or decoding. The shared image data itself never leaves this class;
+ * callers always receive a copy of it or image data derived from it.
+ */
 final class ScaledImageResourceProvider implements ImageDataProvider {
 
+	static final int STANDARD_ZOOM = 100;
+
+	// The supported image variants (ordered by ascending zoom)
+	private static final int[] VARIANT_ZOOMS = { STANDARD_ZOOM, 150, 200 };
+	private static final String[] VARIANT_SUFFIXES = { "", "@1.5x", "@2x" };
+
+	private final Store store;
 	private final URL url;
+	private final ScaledVariants scaledVariants;
+	@Nullable
+	private final ImageTransform transform;
+	private volatile int preparedZoom = 0;
+	@Nullable
+	private volatile ImageData preparedImageData = null;
+
+	private ScaledImageResourceProvider(Store store, ImageKey imageKey, @Nullable ImageTransform transform) {
+		this.store = store;
+		this.url = imageKey.getUrl();
+		this.scaledVariants = store.scaledVariants(imageKey);
+		this.transform = transform;
+	}
+
+	/**
+	 * Makes sure the shared image data matching the current device zoom is loaded.
+	 * <p>
+	 * Like {@linkplain Store#prepare(ImageKey)} this function is used to load and decode the image data on the calling
+	 * thread.
+	 */
+	public void prepareSharedImageData() {
+		if (loadSharedImageData(this.store.deviceZoomHint()) == null) {
+			loadSharedImageData(STANDARD_ZOOM);
+		}
+	}
+
+	/**
+	 * Derives new image data from the shared (memoized) image data for the given zoom level.
+	 * <p>
+	 * The shared image data is passed to the given derivation function only and never handed out otherwise. The
+	 * function must treat it as read-only and return newly created image data (like a slice of it). Should the
+	 * function return the shared instance itself, a copy of it is returned instead.
+	 *
+	 * @param zoom the zoom level to derive the image data for.
+	 * @param derivation the function deriving the image data.
+	 * @return the derived image data or {@code null} if the zoom level is not supported.
+	 */
+	@Nullable
+	public ImageData deriveImageData(int zoom, UnaryOperator<ImageData> derivation) {
+		ImageData sharedImageData = loadSharedImageData(zoom);
+		ImageData imageData = null;
+
+		if (sharedImageData != null) {
+			imageData = derivation.apply(sharedImageData);
+			if (imageData == sharedImageData) {
+				imageData = (ImageData) sharedImageData.clone();
+			}
+		}
+		return imageData;
+	}
 
-	private ScaledImageResourceProvider(URL url) {
-		this.url = url;
+	/**
+	 * Records a zoom level requested by SWT for an image derived from this provider's image data.
+	 * <p>
+	 * Like {@linkplain #getImageData(int)} requests, the recorded zoom level determines the image data prepared up
+	 * front by subsequent {@linkplain Store#prepare(ImageKey)} calls.
+	 *
+	 * @param zoom the requested zoom level.
+	 */
+	public void recordRequestedZoom(int zoom) {
+		this.store.updateDeviceZoomHint(zoom);
 	}
 
-	public static Image createImageFromUrl(Device device, URL imageUrl) {
-		return new Image(device, new ScaledImageResourceProvider(imageUrl));
+	/**
+	 * Creates the {@linkplain Image} backed by this provider.
+	 * <p>
+	 * This function must be called on the {@linkplain Device}'s thread.
+	 *
+	 * @param device the {@linkplain Device} to create the {@linkplain Image} for.
+	 * @return the created {@linkplain Image}.
+	 */
+	public Image createImage(Device device) {
+		return new Image(device, this);
 	}
 
 	@Override
 	@Nullable
 	public ImageData getImageData(int zoom) {
-		ImageData imageData = null;
+		ImageData imageData = this.preparedImageData;
 
-		switch (zoom) {
-		case 100:
-			imageData = loadStandardImageData();
-			break;
-		case 200:
-			imageData = loadScaledImageData("@2x");
-			break;
-		default:
-			// do nothing
-			break;
+		if (imageData != null && zoom == this.preparedZoom) {
+			this.preparedImageData = null;
+		} else {
+			imageData = loadImageData(zoom);
 		}
+		this.store.updateDeviceZoomHint(zoom);
 		return imageData;
 	}
 
-	private ImageData loadStandardImageData() {
+	@Nullable
+	private ImageData loadImageData(int zoom) {
+		ImageTransform currentTransform = this.transform;
 		ImageData imageData;
 
-		try (InputStream imageDataStream = this.url.openStream()) {
-			imageData = new ImageData(imageDataStream);
-		} catch (IOException e) {
-			SWT.error(SWT.ERROR_IO, e);
-			// Never reached; just to make the compiler happy
-			throw Exceptions.toRuntime(e);
+		if (currentTransform != null) {
+			imageData = deriveImageData(zoom, sharedImageData -> currentTransform.apply(sharedImageData, zoom, this.store));
+		} else {
+			imageData = loadSharedImageData(zoom);
+			// The memoized image data is shared, hence always hand out a copy
+			imageData = (imageData != null ? (ImageData) imageData.clone() : null);
 		}
 		return imageData;
 	}
 
 	@Nullable
-	private ImageData loadScaledImageData(String scaleSuffix) {
+	private ImageData loadSharedImageData(int zoom) {
+		int variantIndex = variantIndex(zoom);
+		ImageData imageData = (variantIndex >= 0 ? loadVariantImageData(variantIndex) : null);
+
+		if (imageData == null) {
+			imageData = this.scaledVariants.getResampled(zoom);
+			if (imageData == null) {
+				imageData = resampleImageData(zoom);
+			}
+		}
+		return imageData;
+	}
+
+	@Nullable
+	private ImageData resampleImageData(int zoom) {
+		// Prefer downscaling from the closest larger variant and only upscale if there is none
+		int sourceIndex = -1;
+		ImageData sourceImageData = null;
+
+		for (int variantIndex = 0; variantIndex < VARIANT_ZOOMS.length && sourceImageData == null; variantIndex++) {
+			if (VARIANT_ZOOMS[variantIndex] > zoom) {
+				sourceIndex = variantIndex;
+				sourceImageData = loadVariantImageData(variantIndex);
+			}
+		}
+		for (int variantIndex = VARIANT_ZOOMS.length - 1; variantIndex >= 0 && sourceImageData == null; variantIndex--) {
+			// Integer upscaling of the standard image is left to SWT's own auto scaling
+			if (VARIANT_ZOOMS[variantIndex] < zoom && !(variantIndex == 0 && zoom % STANDARD_ZOOM == 0)) {
+				sourceIndex = variantIndex;
+				sourceImageData = loadVariantImageData(variantIndex);
+			}
+		}
+
 		ImageData imageData = null;
-		String urlString = this.url.toExternalForm();
-		int extensionIndex = urlString.lastIndexOf('.');
 
-		if (extensionIndex > 0) {
-			URL scaledImageDataUrl;
+		if (sourceImageData != null) {
+			URL sourceUrl = (sourceIndex > 0 ? this.scaledVariants.get(VARIANT_SUFFIXES[sourceIndex]) : this.url);
+			Path cacheEntryFile = (sourceUrl != null ? ImageDataDiskCache.entryFile(sourceUrl, zoom) : null);
 
-			try {
-				String scaledImageDataUrlString = urlString.substring(0, extensionIndex) + scaleSuffix
-						+ urlString.substring(extensionIndex);
+			imageData = ImageDataDiskCache.get(cacheEntryFile);
+			if (imageData == null) {
+				int sourceZoom = VARIANT_ZOOMS[sourceIndex];
+				int width = Math.max(1, Math.round((float) sourceImageData.width * zoom / sourceZoom));
+				int height = Math.max(1, Math.round((float) sourceImageData.height * zoom / sourceZoom));
 
-				scaledImageDataUrl = new URL(scaledImageDataUrlString);
+				imageData = ImageDataScaler.scale(sourceImageData, width, height);
+				ImageDataDiskCache.put(cacheEntryFile, imageData);
+			}
+			this.scaledVariants.putResampled(zoom, imageData);
+		}
+		return imageData;
+	}
+
+	@Nullable
+	private ImageData loadVariantImageData(int variantIndex) {
+		ImageData imageData = this.scaledVariants.getDecoded(variantIndex);
+
+		if (imageData == null) {
+			imageData = (variantIndex > 0
+					? loadScaledImageData(VARIANT_SUFFIXES[variantIndex], VARIANT_ZOOMS[variantIndex])
+					: loadStandardImageData());
+			if (imageData != null) {
+				this.scaledVariants.putDecoded(variantIndex, imageData);
+			}
+		}
+		return imageData;
+	}
+
+	private static int variantIndex(int zoom) {
+		int variantIndex = VARIANT_ZOOMS.length - 1;
+
+		while (variantIndex >= 0 && VARIANT_ZOOMS[variantIndex] != zoom) {
+			variantIndex--;
+		}
+		return variantIndex;
+	}
+
+	private ImageData loadStandardImageData() {
+		Path cacheEntryFile = ImageDataDiskCache.entryFile(this.url, STANDARD_ZOOM);
+		ImageData imageData = ImageDataDiskCache.get(cacheEntryFile);
+
+		if (imageData == null) {
+			try (InputStream imageDataStream = this.url.openStream()) {
+				imageData = new ImageData(imageDataStream);
 			} catch (IOException e) {
 				SWT.error(SWT.ERROR_IO, e);
 				// Never reached; just to make the compiler happy
 				throw Exceptions.toRuntime(e);
 			}
-			try (InputStream imageDataStream = scaledImageDataUrl.openStream()) {
-				imageData = new ImageData(imageDataStream);
-			} catch (IOException e) {
-				Exceptions.ignore(e);
+			ImageDataDiskCache.put(cacheEntryFile, imageData);
+		}
+		return imageData;
+	}
+
+	@Nullable
+	private ImageData loadScaledImageData(String scaleSuffix, int zoom) {
+		ImageData imageData = null;
+		URL scaledImageDataUrl = this.scaledVariants.get(scaleSuffix);
+
+		if (scaledImageDataUrl != null) {
+			Path cacheEntryFile = ImageDataDiskCache.entryFile(scaledImageDataUrl, zoom);
+
+			imageData = ImageDataDiskCache.get(cacheEntryFile);
+			if (imageData == null) {
+				try (InputStream imageDataStream = scaledImageDataUrl.openStream()) {
+					imageData = new ImageData(imageDataStream);
+					ImageDataDiskCache.put(cacheEntryFile, imageData);
+				} catch (IOException e) {
+					// Whatever the actual cause, the variant is not probed again (until the store is cleared)
+					Exceptions.ignore(e);
+					this.scaledVariants.markMissing(scaleSuffix);
+				}
 			}
 		}
 		return imageData;
 	}
 
+	/**
+	 * Per {@linkplain Device} store of the probed image variants and the memoized image data.
+	 * <p>
+	 * The store is owned by the {@linkplain Device}'s root {@linkplain ResourceTracker} and cleared together with it.
+	 * The number of image {@linkplain URL}s tracked by a store is bounded and the least recently used ones are dropped
+	 * first.
+	 */
+	static final class Store {
+
+		private static final int MAX_URLS = 1024;
+
+		private final Map<ImageKey, ScaledVariants> scaledVariants = new LinkedHashMap<ImageKey, ScaledVariants>(16,
+				0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ImageKey, ScaledVariants> eldest) {
+				return size() > MAX_URLS;
+			}
+
+		};
+
+		// The device zoom most recently requested by SWT (used to prepare the matching image data up front)
+		private volatile int deviceZoomHint = STANDARD_ZOOM;
+
+		Store() {
+			// Nothing to do here
+		}
+
+		/**
+		 * Prepares the image data for the given image {@linkplain ImageKey}.
+		 * <p>
+		 * The image data matching the device zoom is loaded on the calling thread and handed over to the first
+		 * {@linkplain ScaledImageResourceProvider#getImageData(int)} call requesting it.
+		 *
+		 * @param imageKey the {@linkplain ImageKey} of the image to prepare.
+		 * @return the prepared provider.
+		 */
+		ScaledImageResourceProvider prepare(ImageKey imageKey) {
+			return prepare(imageKey, null);
+		}
+
+		/**
+		 * Prepares the transformed image data for the given image {@linkplain ImageKey}.
+		 * <p>
+		 * Like {@linkplain #prepare(ImageKey)} the transformed image data matching the device zoom is computed on the
+		 * calling thread. Image data for any other zoom level is derived from the image data loaded for the
+		 * {@linkplain ImageKey} (and never from an already created {@linkplain Image}).
+		 *
+		 * @param imageKey the {@linkplain ImageKey} of the image to prepare.
+		 * @param transform the {@linkplain ImageTransform} to apply (may be {@code null}).
+		 * @return the prepared provider.
+		 */
+		ScaledImageResourceProvider prepare(ImageKey imageKey, @Nullable ImageTransform transform) {
+			ScaledImageResourceProvider provider = new ScaledImageResourceProvider(this, imageKey, transform);
+			int zoom = this.deviceZoomHint;
+			ImageData imageData = provider.loadImageData(zoom);
+
+			if (imageData == null) {
+				zoom = STANDARD_ZOOM;
+				imageData = provider.loadImageData(zoom);
+			}
+			provider.preparedImageData = imageData;
+			provider.preparedZoom = zoom;
+			return provider;
+		}
+
+		/**
+		 * Gets the provider for the given image {@linkplain ImageKey} without preparing any image data.
+		 *
+		 * @param imageKey the {@linkplain ImageKey} of the image to get the provider for.
+		 * @return the requested provider.
+		 */
+		ScaledImageResourceProvider forKey(ImageKey imageKey) {
+			return new ScaledImageResourceProvider(this, imageKey, null);
+		}
+
+		/**
+		 * Drops all probe results and memoized image data.
+		 */
+		void clear() {
+			synchronized (this.scaledVariants) {
+				this.scaledVariants.clear();
+			}
+		}
+
+		int deviceZoomHint() {
+			return this.deviceZoomHint;
+		}
+
+		void updateDeviceZoomHint(int zoom) {
+			this.deviceZoomHint = zoom;
+		}
+
+		private ScaledVariants scaledVariants(ImageKey imageKey) {
+			synchronized (this.scaledVariants) {
+				return this.scaledVariants.computeIfAbsent(imageKey, ScaledVariants::new);
+			}
+		}
+
+	}
+
+	/**
+	 * Probe results and memoized image data for the scaled variants of a single image {@linkplain URL}.
+	 * <p>
+	 * Every variant {@linkplain URL} is derived only once. Variants known to be missing are recorded as such, so
+	 * subsequent requests for them are answered without any I/O. Decoded and resampled image data is softly referenced
+	 * and therefore kept as long as memory permits.
+	 */
+	private static final class ScaledVariants {
+
+		private final URL url;
+		private final Map<String, Optional<URL>> variantUrls = new ConcurrentHashMap<>();
+		private final Map<Integer, SoftReference<ImageData>> decodedImageData = new ConcurrentHashMap<>();
+		private final Map<Integer, SoftReference<ImageData>> resampledImageData = new ConcurrentHashMap<>();
+
+		ScaledVariants(ImageKey imageKey) {
+			this.url = imageKey.getUrl();
+		}
+
+		@Nullable
+		URL get(String scaleSuffix) {
+			return this.variantUrls.computeIfAbsent(scaleSuffix, this::variantUrl).orElse(null);
+		}
+
+		void markMissing(String scaleSuffix) {
+			this.variantUrls.put(scaleSuffix, Optional.empty());
+		}
+
+		@Nullable
+		ImageData getDecoded(int variantIndex) {
+			return getMemoized(this.decodedImageData, variantIndex);
+		}
+
+		void putDecoded(int variantIndex, ImageData imageData) {
+			this.decodedImageData.put(variantIndex, new SoftReference<>(imageData));
+		}
+
+		@Nullable
+		ImageData getResampled(int zoom) {
+			return getMemoized(this.resampledImageData, zoom);
+		}
+
+		void putResampled(int zoom, ImageData imageData) {
+			this.resampledImageData.put(zoom, new SoftReference<>(imageData));
+		}
+
+		@Nullable
+		private static ImageData getMemoized(Map<Integer, SoftReference<ImageData>> memo, int key) {
+			SoftReference<ImageData> imageDataReference = memo.get(key);
+
+			return (imageDataReference != null ? imageDataReference.get() : null);
+		}
+
+		private Optional<URL> variantUrl(String scaleSuffix) {
+			String urlString = this.url.toExternalForm();
+			int extensionIndex = urlString.lastIndexOf('.');
+			Optional<URL> variantUrl = Optional.empty();
+
+			if (extensionIndex > 0) {
+				try {
+					// Resolve against the base URL to re-use its protocol handler
+					variantUrl = Optional.of(new URL(this.url, urlString.substring(0, extensionIndex) + scaleSuffix
+							+ urlString.substring(extensionIndex)));
+				} catch (IOException e) {
+					SWT.error(SWT.ERROR_IO, e);
+					// Never reached; just to make the compiler happy
+					throw Exceptions.toRuntime(e);
+				}
+			}
+			return variantUrl;
+		}
+
+	}
+
 }
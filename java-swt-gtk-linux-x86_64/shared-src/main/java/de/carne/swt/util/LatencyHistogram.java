@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram for recording latencies (in nanoseconds).
+ * <p>
+ * The recorded latencies are counted in power of two buckets. Bucket {@code 0} counts the zero latencies and bucket
+ * {@code n} counts the latencies in the range [2<sup>n-1</sup>, 2<sup>n</sup>).
+ */
+public final class LatencyHistogram {
+
+	/**
+	 * The number of buckets used by the histogram.
+	 */
+	public static final int BUCKET_COUNT = Long.SIZE;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param nanos the latency (in nanoseconds) to record.
+	 */
+	public void record(long nanos) {
+		long latency = Math.max(nanos, 0);
+
+		this.buckets.incrementAndGet(bucketIndex(latency));
+		this.count.increment();
+		this.total.add(latency);
+		this.max.accumulateAndGet(latency, Math::max);
+	}
+
+	/**
+	 * Gets the number of recorded latencies.
+	 *
+	 * @return the number of recorded latencies.
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Gets the sum of all recorded latencies (in nanoseconds).
+	 *
+	 * @return the sum of all recorded latencies (in nanoseconds).
+	 */
+	public long getTotal() {
+		return this.total.sum();
+	}
+
+	/**
+	 * Gets the mean of all recorded latencies (in nanoseconds).
+	 *
+	 * @return the mean of all recorded latencies (in nanoseconds).
+	 */
+	public long getMean() {
+		long currentCount = getCount();
+
+		return (currentCount > 0 ? getTotal() / currentCount : 0);
+	}
+
+	/**
+	 * Gets the maximum of all recorded latencies (in nanoseconds).
+	 *
+	 * @return the maximum of all recorded latencies (in nanoseconds).
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+
+	/**
+	 * Gets the (approximated) percentile of the recorded latencies (in nanoseconds).
+	 * <p>
+	 * The returned value is the upper bound of the bucket containing the requested percentile.
+	 *
+	 * @param percentile the percentile to get (in the range [0.0, 100.0]).
+	 * @return the (approximated) percentile of the recorded latencies (in nanoseconds).
+	 */
+	public long getPercentile(double percentile) {
+		long[] bucketCounts = getBuckets();
+		long totalCount = 0;
+
+		for (long bucketCount : bucketCounts) {
+			totalCount += bucketCount;
+		}
+
+		long threshold = (long) Math.ceil(totalCount * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+		long accumulatedCount = 0;
+		long percentileValue = 0;
+
+		for (int bucketIndex = 0; bucketIndex < bucketCounts.length; bucketIndex++) {
+			accumulatedCount += bucketCounts[bucketIndex];
+			if (accumulatedCount > 0 && accumulatedCount >= threshold) {
+				percentileValue = Math.min(bucketUpperBound(bucketIndex), getMax());
+				break;
+			}
+		}
+		return percentileValue;
+	}
+
+	/**
+	 * Gets the current bucket counts.
+	 *
+	 * @return the current bucket counts.
+	 */
+	public long[] getBuckets() {
+		long[] bucketCounts = new long[BUCKET_COUNT];
+
+		for (int bucketIndex = 0; bucketIndex < BUCKET_COUNT; bucketIndex++) {
+			bucketCounts[bucketIndex] = this.buckets.get(bucketIndex);
+		}
+		return bucketCounts;
+	}
+
+	/**
+	 * Creates a copy of the current histogram state.
+	 *
+	 * @return a copy of the current histogram state.
+	 */
+	public LatencyHistogram snapshot() {
+		LatencyHistogram snapshot = new LatencyHistogram();
+
+		for (int bucketIndex = 0; bucketIndex < BUCKET_COUNT; bucketIndex++) {
+			snapshot.buckets.set(bucketIndex, this.buckets.get(bucketIndex));
+		}
+		snapshot.count.add(this.count.sum());
+		snapshot.total.add(this.total.sum());
+		snapshot.max.set(this.max.get());
+		return snapshot;
+	}
+
+	/**
+	 * Resets all recorded latencies.
+	 */
+	public void reset() {
+		for (int bucketIndex = 0; bucketIndex < BUCKET_COUNT; bucketIndex++) {
+			this.buckets.set(bucketIndex, 0);
+		}
+		this.count.reset();
+		this.total.reset();
+		this.max.set(0);
+	}
+
+	private static int bucketIndex(long latency) {
+		return Math.min(Long.SIZE - Long.numberOfLeadingZeros(latency), BUCKET_COUNT - 1);
+	}
+
+	private static long bucketUpperBound(int bucketIndex) {
+		return (bucketIndex < BUCKET_COUNT - 1 ? (1L << bucketIndex) - 1 : Long.MAX_VALUE);
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + getCount() + ", mean=" + getMean() + "ns, p99=" + getPercentile(99.0) + "ns, max=" + getMax()
+				+ "ns";
+	}
+
+}
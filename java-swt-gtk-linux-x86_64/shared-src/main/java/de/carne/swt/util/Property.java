@@ -16,20 +16,34 @@
  */
 package de.carne.swt.util;
 
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 /**
  * This class represents an observable property value.
+ * <p>
+ * The property value is held in a lock-free cell and the registered {@linkplain PropertyChangedListener}s are invoked
+ * without holding any lock. Listeners may therefore safely add or remove listeners or set property values while being
+ * notified. Multiple value changes can be combined into a single notification per property via a
+ * {@linkplain PropertyTransaction}.
+ * <p>
+ * Listeners are notified on the thread setting the value. Every value change is versioned and notifications are
+ * dispatched one at a time in version order. A notification overtaken by a newer one (e.g. due to a concurrent or a
+ * re-entrant {@linkplain #set(Object)} call) is dropped. Hence listeners may miss intermediate changes, but the last
+ * value they are notified about is always the property's current value.
  *
  * @param <T> the actual property type.
  */
 public class Property<T> implements Supplier<T> {
 
-	private T value;
-	private List<PropertyChangedListener<T>> changedListeners = new ArrayList<>();
+	private final AtomicReference<Version<T>> value;
+	private final List<PropertyChangedListener<T>> changedListeners = new CopyOnWriteArrayList<>();
+	private final Object notifyLock = new Object();
+	private long notifiedVersion = 0;
 
 	/**
 	 * Constructs a new {@linkplain Property} instance.
@@ -37,7 +51,7 @@ public class Property<T> implements Supplier<T> {
 	 * @param value the initial property value.
 	 */
 	public Property(T value) {
-		this.value = value;
+		this.value = new AtomicReference<>(new Version<>(value, 0));
 	}
 
 	/**
@@ -45,7 +59,7 @@ public class Property<T> implements Supplier<T> {
 	 */
 	@Override
 	public T get() {
-		return this.value;
+		return this.value.get().value;
 	}
 
 	/**
@@ -60,24 +74,49 @@ public class Property<T> implements Supplier<T> {
 
 	/**
 	 * Sets the property value.
+	 * <p>
+	 * If a {@linkplain PropertyTransaction} is active for the calling thread, the notification of the registered
+	 * listeners is deferred until the transaction is closed. See the class documentation regarding the notification
+	 * of concurrent changes.
 	 *
 	 * @param newValue the value to set.
 	 * @param forceChange whether to always notify registered ({@code true}) or only if value is changed
 	 * ({@code false}).
 	 * @return the old property value.
 	 */
-	public synchronized T set(T newValue, boolean forceChange) {
-		T oldValue = this.value;
+	public T set(T newValue, boolean forceChange) {
+		Version<T> oldVersion = this.value.getAndUpdate(version -> new Version<>(newValue, version.number + 1));
+		T oldValue = oldVersion.value;
 
-		this.value = newValue;
-		if (forceChange || !Objects.equals(this.value, oldValue)) {
-			for (PropertyChangedListener<T> changedListener : this.changedListeners) {
-				changedListener.changed(this.value, oldValue);
-			}
+		if (!PropertyTransaction.defer(this, oldValue, forceChange)) {
+			notifyChanged(newValue, oldValue, oldVersion.number + 1, forceChange);
 		}
 		return oldValue;
 	}
 
+	@SuppressWarnings("unchecked")
+	void notifyDeferred(Object oldValue, boolean forceChange) {
+		Version<T> currentVersion = this.value.get();
+
+		notifyChanged(currentVersion.value, (T) oldValue, currentVersion.number, forceChange);
+	}
+
+	private void notifyChanged(T newValue, T oldValue, long versionNumber, boolean forceChange) {
+		if (forceChange || !Objects.equals(newValue, oldValue)) {
+			synchronized (this.notifyLock) {
+				if (versionNumber > this.notifiedVersion) {
+					Iterator<PropertyChangedListener<T>> changedListeners = this.changedListeners.iterator();
+
+					this.notifiedVersion = versionNumber;
+					// Stop as soon as a listener has caused a newer notification (which already reached all listeners)
+					while (this.notifiedVersion == versionNumber && changedListeners.hasNext()) {
+						changedListeners.next().changed(newValue, oldValue);
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Adds a {@linkplain PropertyChangedListener}.
 	 * <p>
@@ -86,7 +125,7 @@ public class Property<T> implements Supplier<T> {
 	 * @param changedListener the listener to add.
 	 * @return the updated {@linkplain Property} instance.
 	 */
-	public synchronized Property<T> addChangedListener(PropertyChangedListener<T> changedListener) {
+	public Property<T> addChangedListener(PropertyChangedListener<T> changedListener) {
 		this.changedListeners.add(changedListener);
 		return this;
 	}
@@ -97,9 +136,21 @@ public class Property<T> implements Supplier<T> {
 	 * @param changedListener the listener to remove.
 	 * @return the updated {@linkplain Property} instance.
 	 */
-	public synchronized Property<T> removeChangedListener(PropertyChangedListener<T> changedListener) {
+	public Property<T> removeChangedListener(PropertyChangedListener<T> changedListener) {
 		this.changedListeners.remove(changedListener);
 		return this;
 	}
 
+	private static final class Version<T> {
+
+		final T value;
+		final long number;
+
+		Version(T value, long number) {
+			this.value = value;
+			this.number = number;
+		}
+
+	}
+
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Transaction combining multiple {@linkplain Property} value changes into a single notification per property.
+ * <p>
+ * While a transaction is open, the listener notifications caused by {@linkplain Property#set(Object, boolean)} calls
+ * of the transaction's thread are deferred. As soon as the transaction is closed, each changed property notifies its
+ * listeners once with its current value and the value it had before the transaction's first change. A property whose
+ * value has been changed back to its original value is not notified (unless a change has been forced). Transactions
+ * may be nested; the notifications are sent as soon as the outermost transaction is closed.
+ *
+ * <pre>
+ * try (PropertyTransaction transaction = PropertyTransaction.begin()) {
+ * 	property1.set(value1);
+ * 	property2.set(value2);
+ * }
+ * </pre>
+ */
+public final class PropertyTransaction implements AutoCloseable {
+
+	private static final ThreadLocal<@Nullable PropertyTransaction> CURRENT = new ThreadLocal<>();
+
+	private final Map<Property<?>, Change> changes = new IdentityHashMap<>();
+	private final List<Change> changeOrder = new ArrayList<>();
+	private final Thread owner = Thread.currentThread();
+	private int depth = 1;
+	private boolean closed = false;
+
+	private PropertyTransaction() {
+		// Nothing to do here
+	}
+
+	/**
+	 * Begins a new transaction for the calling thread (or joins the already active one).
+	 *
+	 * @return the transaction to close as soon as all property changes have been applied.
+	 */
+	public static PropertyTransaction begin() {
+		PropertyTransaction transaction = CURRENT.get();
+
+		if (transaction != null) {
+			transaction.depth++;
+		} else {
+			transaction = new PropertyTransaction();
+			CURRENT.set(transaction);
+		}
+		return transaction;
+	}
+
+	static boolean defer(Property<?> property, Object oldValue, boolean forceChange) {
+		PropertyTransaction transaction = CURRENT.get();
+		boolean deferred = transaction != null;
+
+		if (deferred) {
+			Change change = transaction.changes.get(property);
+
+			if (change == null) {
+				change = new Change(property, oldValue, forceChange);
+				transaction.changes.put(property, change);
+				transaction.changeOrder.add(change);
+			} else {
+				change.forceChange |= forceChange;
+			}
+		}
+		return deferred;
+	}
+
+	/**
+	 * Closes this transaction and notifies the listeners of all changed properties (if this is the outermost
+	 * transaction).
+	 *
+	 * @throws IllegalStateException if the transaction is closed by a thread other than the one it has been begun by.
+	 */
+	@Override
+	public void close() {
+		if (!Thread.currentThread().equals(this.owner)) {
+			throw new IllegalStateException("Transaction not closed by its owning thread: " + this.owner.getName());
+		}
+		if (!this.closed) {
+			this.depth--;
+			if (this.depth == 0) {
+				this.closed = true;
+				CURRENT.remove();
+				notifyChanges();
+			}
+		}
+	}
+
+	private void notifyChanges() {
+		RuntimeException notifyException = null;
+
+		for (Change change : this.changeOrder) {
+			try {
+				change.property.notifyDeferred(change.oldValue, change.forceChange);
+			} catch (RuntimeException e) {
+				// Notify the remaining properties first and re-throw afterwards
+				if (notifyException == null) {
+					notifyException = e;
+				}
+			}
+		}
+		if (notifyException != null) {
+			throw notifyException;
+		}
+	}
+
+	private static final class Change {
+
+		final Property<?> property;
+		final Object oldValue;
+		boolean forceChange;
+
+		Change(Property<?> property, Object oldValue, boolean forceChange) {
+			this.property = property;
+			this.oldValue = oldValue;
+			this.forceChange = forceChange;
+		}
+
+	}
+
+}
@@ -24,6 +24,9 @@ import org.eclipse.swt.widgets.Control;
 
 import de.carne.swt.events.EventConsumer;
 import de.carne.swt.events.EventReceiver;
+import de.carne.swt.events.EventView;
+import de.carne.swt.events.EventViewConsumer;
+import de.carne.swt.events.TimedEventConsumer;
 
 /**
  * {@linkplain Control} builder.
@@ -62,8 +65,8 @@ public class ControlBuilder<T extends Control> extends WidgetBuilder<T> {
 		EventConsumer<SelectionEvent> listener = EventConsumer.selected(action);
 		T control = get();
 
-		control.addListener(SWT.Selection, listener);
-		control.addListener(SWT.DefaultSelection, listener);
+		addListener(control, SWT.Selection, listener);
+		addListener(control, SWT.DefaultSelection, listener);
 		return this;
 	}
 
@@ -77,8 +80,94 @@ public class ControlBuilder<T extends Control> extends WidgetBuilder<T> {
 		EventReceiver listener = EventReceiver.any(action);
 		T control = get();
 
-		control.addListener(SWT.Selection, listener);
-		control.addListener(SWT.DefaultSelection, listener);
+		addListener(control, SWT.Selection, listener);
+		addListener(control, SWT.DefaultSelection, listener);
+		return this;
+	}
+
+	/**
+	 * Sets the selection action receiving a reusable {@linkplain EventView}.
+	 *
+	 * @param action the action to set.
+	 * @return the updated builder.
+	 * @see EventViewConsumer
+	 */
+	public ControlBuilder<T> onSelectedView(Consumer<EventView> action) {
+		EventViewConsumer listener = EventViewConsumer.selected(action);
+		T control = get();
+
+		addListener(control, SWT.Selection, listener);
+		addListener(control, SWT.DefaultSelection, listener);
+		return this;
+	}
+
+	/**
+	 * Sets the selection action, which is invoked as soon as no further selection has occurred for the given delay.
+	 *
+	 * @param delayMillis the delay (in milliseconds) to wait for further selections.
+	 * @param action the action to set.
+	 * @return the updated builder.
+	 * @see TimedEventConsumer#debounced(long, Consumer)
+	 */
+	public ControlBuilder<T> onSelectedDebounced(long delayMillis, Runnable action) {
+		TimedEventConsumer listener = TimedEventConsumer.debounced(delayMillis, event -> action.run());
+		T control = get();
+
+		addListener(control, SWT.Selection, listener);
+		addListener(control, SWT.DefaultSelection, listener);
+		return this;
+	}
+
+	/**
+	 * Sets the selection action, which is invoked at most once per the given interval.
+	 *
+	 * @param intervalMillis the minimum interval (in milliseconds) between two action invocations.
+	 * @param action the action to set.
+	 * @return the updated builder.
+	 * @see TimedEventConsumer#throttled(long, Consumer)
+	 */
+	public ControlBuilder<T> onSelectedThrottled(long intervalMillis, Runnable action) {
+		TimedEventConsumer listener = TimedEventConsumer.throttled(intervalMillis, event -> action.run());
+		T control = get();
+
+		addListener(control, SWT.Selection, listener);
+		addListener(control, SWT.DefaultSelection, listener);
+		return this;
+	}
+
+	/**
+	 * Sets the {@linkplain SWT#MouseMove} action.
+	 *
+	 * @param action the action to set.
+	 * @return the updated builder.
+	 * @see EventViewConsumer
+	 */
+	public ControlBuilder<T> onMouseMove(Consumer<EventView> action) {
+		addListener(get(), SWT.MouseMove, EventViewConsumer.mouseMoved(action));
+		return this;
+	}
+
+	/**
+	 * Sets the {@linkplain SWT#Paint} action.
+	 *
+	 * @param action the action to set.
+	 * @return the updated builder.
+	 * @see EventViewConsumer
+	 */
+	public ControlBuilder<T> onPaint(Consumer<EventView> action) {
+		addListener(get(), SWT.Paint, EventViewConsumer.painted(action));
+		return this;
+	}
+
+	/**
+	 * Sets the {@linkplain SWT#KeyDown} action.
+	 *
+	 * @param action the action to set.
+	 * @return the updated builder.
+	 * @see EventViewConsumer
+	 */
+	public ControlBuilder<T> onKeyDown(Consumer<EventView> action) {
+		addListener(get(), SWT.KeyDown, EventViewConsumer.keyPressed(action));
 		return this;
 	}
 
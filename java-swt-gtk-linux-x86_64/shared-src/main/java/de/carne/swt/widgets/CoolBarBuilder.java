@@ -31,6 +31,9 @@ import org.eclipse.swt.widgets.CoolItem;
 
 import de.carne.swt.events.EventConsumer;
 import de.carne.swt.events.EventReceiver;
+import de.carne.swt.events.EventView;
+import de.carne.swt.events.EventViewConsumer;
+import de.carne.swt.events.TimedEventConsumer;
 
 /**
  * {@linkplain CoolBar} builder.
@@ -198,8 +201,8 @@ public final class CoolBarBuilder extends CompositeBuilder<CoolBar> {
 		CoolItem item = checkCurrentItem(this.currentItem);
 		EventConsumer<SelectionEvent> listener = EventConsumer.selected(action);
 
-		item.addListener(SWT.Selection, listener);
-		item.addListener(SWT.DefaultSelection, listener);
+		addListener(item, SWT.Selection, listener);
+		addListener(item, SWT.DefaultSelection, listener);
 		return this;
 	}
 
@@ -208,8 +211,38 @@ public final class CoolBarBuilder extends CompositeBuilder<CoolBar> {
 		CoolItem item = checkCurrentItem(this.currentItem);
 		EventReceiver listener = EventReceiver.any(action);
 
-		item.addListener(SWT.Selection, listener);
-		item.addListener(SWT.DefaultSelection, listener);
+		addListener(item, SWT.Selection, listener);
+		addListener(item, SWT.DefaultSelection, listener);
+		return this;
+	}
+
+	@Override
+	public CoolBarBuilder onSelectedView(Consumer<EventView> action) {
+		CoolItem item = checkCurrentItem(this.currentItem);
+		EventViewConsumer listener = EventViewConsumer.selected(action);
+
+		addListener(item, SWT.Selection, listener);
+		addListener(item, SWT.DefaultSelection, listener);
+		return this;
+	}
+
+	@Override
+	public CoolBarBuilder onSelectedDebounced(long delayMillis, Runnable action) {
+		CoolItem item = checkCurrentItem(this.currentItem);
+		TimedEventConsumer listener = TimedEventConsumer.debounced(delayMillis, event -> action.run());
+
+		addListener(item, SWT.Selection, listener);
+		addListener(item, SWT.DefaultSelection, listener);
+		return this;
+	}
+
+	@Override
+	public CoolBarBuilder onSelectedThrottled(long intervalMillis, Runnable action) {
+		CoolItem item = checkCurrentItem(this.currentItem);
+		TimedEventConsumer listener = TimedEventConsumer.throttled(intervalMillis, event -> action.run());
+
+		addListener(item, SWT.Selection, listener);
+		addListener(item, SWT.DefaultSelection, listener);
 		return this;
 	}
 
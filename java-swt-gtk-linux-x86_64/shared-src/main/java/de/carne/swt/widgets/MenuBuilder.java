@@ -33,6 +33,8 @@ import org.eclipse.swt.widgets.Shell;
 
 import de.carne.swt.events.EventConsumer;
 import de.carne.swt.events.EventReceiver;
+import de.carne.swt.events.EventView;
+import de.carne.swt.events.EventViewConsumer;
 
 /**
  * {@linkplain Menu} builder.
@@ -245,8 +247,8 @@ public final class MenuBuilder implements Supplier<Menu> {
 		MenuItem item = checkCurrentItem(this.currentItem);
 		EventConsumer<SelectionEvent> listener = EventConsumer.selected(action);
 
-		item.addListener(SWT.Selection, listener);
-		item.addListener(SWT.DefaultSelection, listener);
+		WidgetBuilder.addListener(item, SWT.Selection, listener);
+		WidgetBuilder.addListener(item, SWT.DefaultSelection, listener);
 		return this;
 	}
 
@@ -261,8 +263,24 @@ public final class MenuBuilder implements Supplier<Menu> {
 		MenuItem item = checkCurrentItem(this.currentItem);
 		EventReceiver listener = EventReceiver.any(action);
 
-		item.addListener(SWT.Selection, listener);
-		item.addListener(SWT.DefaultSelection, listener);
+		WidgetBuilder.addListener(item, SWT.Selection, listener);
+		WidgetBuilder.addListener(item, SWT.DefaultSelection, listener);
+		return this;
+	}
+
+	/**
+	 * Adds a selection action receiving a reusable {@linkplain EventView}.
+	 *
+	 * @param action the action to set.
+	 * @return the updated {@linkplain MenuBuilder}.
+	 * @see EventViewConsumer
+	 */
+	public MenuBuilder onSelectedView(Consumer<EventView> action) {
+		MenuItem item = checkCurrentItem(this.currentItem);
+		EventViewConsumer listener = EventViewConsumer.selected(action);
+
+		WidgetBuilder.addListener(item, SWT.Selection, listener);
+		WidgetBuilder.addListener(item, SWT.DefaultSelection, listener);
 		return this;
 	}
 
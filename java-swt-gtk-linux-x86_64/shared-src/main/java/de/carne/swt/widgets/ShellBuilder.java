@@ -108,7 +108,7 @@ public class ShellBuilder extends CompositeBuilder<Shell> {
 	public ShellBuilder onShellActivated(Consumer<ShellEvent> action) {
 		EventConsumer<ShellEvent> listener = EventConsumer.shellEvent(action);
 
-		get().addListener(SWT.Activate, listener);
+		addListener(get(), SWT.Activate, listener);
 		return this;
 	}
 
@@ -122,7 +122,7 @@ public class ShellBuilder extends CompositeBuilder<Shell> {
 	public ShellBuilder onShellActivated(Runnable action) {
 		EventReceiver listener = EventReceiver.any(action);
 
-		get().addListener(SWT.Activate, listener);
+		addListener(get(), SWT.Activate, listener);
 		return this;
 	}
 
@@ -136,7 +136,7 @@ public class ShellBuilder extends CompositeBuilder<Shell> {
 	public ShellBuilder onShellDeactivated(Consumer<ShellEvent> action) {
 		EventConsumer<ShellEvent> listener = EventConsumer.shellEvent(action);
 
-		get().addListener(SWT.Deactivate, listener);
+		addListener(get(), SWT.Deactivate, listener);
 		return this;
 	}
 
@@ -150,7 +150,7 @@ public class ShellBuilder extends CompositeBuilder<Shell> {
 	public ShellBuilder onShellDeactivated(Runnable action) {
 		EventReceiver listener = EventReceiver.any(action);
 
-		get().addListener(SWT.Deactivate, listener);
+		addListener(get(), SWT.Deactivate, listener);
 		return this;
 	}
 
@@ -164,7 +164,7 @@ public class ShellBuilder extends CompositeBuilder<Shell> {
 	public ShellBuilder onShellIconified(Consumer<ShellEvent> action) {
 		EventConsumer<ShellEvent> listener = EventConsumer.shellEvent(action);
 
-		get().addListener(SWT.Iconify, listener);
+		addListener(get(), SWT.Iconify, listener);
 		return this;
 	}
 
@@ -178,7 +178,7 @@ public class ShellBuilder extends CompositeBuilder<Shell> {
 	public ShellBuilder onShellIconified(Runnable action) {
 		EventReceiver listener = EventReceiver.any(action);
 
-		get().addListener(SWT.Iconify, listener);
+		addListener(get(), SWT.Iconify, listener);
 		return this;
 	}
 
@@ -192,7 +192,7 @@ public class ShellBuilder extends CompositeBuilder<Shell> {
 	public ShellBuilder onShellDeiconified(Consumer<ShellEvent> action) {
 		EventConsumer<ShellEvent> listener = EventConsumer.shellEvent(action);
 
-		get().addListener(SWT.Deiconify, listener);
+		addListener(get(), SWT.Deiconify, listener);
 		return this;
 	}
 
@@ -206,7 +206,7 @@ public class ShellBuilder extends CompositeBuilder<Shell> {
 	public ShellBuilder onShellDeiconified(Runnable action) {
 		EventReceiver listener = EventReceiver.any(action);
 
-		get().addListener(SWT.Deiconify, listener);
+		addListener(get(), SWT.Deiconify, listener);
 		return this;
 	}
 
@@ -220,7 +220,7 @@ public class ShellBuilder extends CompositeBuilder<Shell> {
 	public ShellBuilder onShellClosed(Consumer<ShellEvent> action) {
 		EventConsumer<ShellEvent> listener = EventConsumer.shellEvent(action);
 
-		get().addListener(SWT.Close, listener);
+		addListener(get(), SWT.Close, listener);
 		return this;
 	}
 
@@ -234,7 +234,7 @@ public class ShellBuilder extends CompositeBuilder<Shell> {
 	public ShellBuilder onShellClosed(Runnable action) {
 		EventReceiver listener = EventReceiver.any(action);
 
-		get().addListener(SWT.Close, listener);
+		addListener(get(), SWT.Close, listener);
 		return this;
 	}
 
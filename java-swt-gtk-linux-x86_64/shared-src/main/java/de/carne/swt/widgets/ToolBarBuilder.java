@@ -29,6 +29,12 @@ import org.eclipse.swt.widgets.ToolItem;
 
 import de.carne.swt.events.EventConsumer;
 import de.carne.swt.events.EventReceiver;
+import de.carne.swt.events.EventView;
+import de.carne.swt.events.EventViewConsumer;
+import de.carne.swt.events.TimedEventConsumer;
+import de.carne.swt.graphics.ImageKey;
+import de.carne.swt.graphics.ImageTransform;
+import de.carne.swt.graphics.ResourceTracker;
 
 /**
  * {@linkplain ToolBar} builder.
@@ -165,6 +171,7 @@ public final class ToolBarBuilder extends CompositeBuilder<ToolBar> {
 	 * @param image The {@linkplain Image} to set.
 	 * @return The updated builder.
 	 * @see ToolItem#setDisabledImage(Image)
+	 * @see #withImages(ResourceTracker, ImageKey)
 	 */
 	public ToolBarBuilder withDisabledImage(Image image) {
 		checkCurrentItem(this.currentItem).setDisabledImage(image);
@@ -182,13 +189,34 @@ public final class ToolBarBuilder extends CompositeBuilder<ToolBar> {
 		return withDisabledImage(image.get());
 	}
 
+	/**
+	 * Set the current {@linkplain ToolItem}'s image as well as its disabled image.
+	 * <p>
+	 * The disabled image is derived from the image via {@linkplain ImageTransform#disabled()}. Both images are managed
+	 * by the given {@linkplain ResourceTracker}.
+	 *
+	 * @param resources The {@linkplain ResourceTracker} to get the images from.
+	 * @param imageKey The {@linkplain ImageKey} of the image to set.
+	 * @return The updated builder.
+	 * @see ToolItem#setImage(Image)
+	 * @see ToolItem#setDisabledImage(Image)
+	 * @see ResourceTracker#getDerivedImage(ImageKey, ImageTransform)
+	 */
+	public ToolBarBuilder withImages(ResourceTracker resources, ImageKey imageKey) {
+		ToolItem item = checkCurrentItem(this.currentItem);
+
+		item.setImage(resources.getImage(imageKey));
+		item.setDisabledImage(resources.getDerivedImage(imageKey, ImageTransform.disabled()));
+		return this;
+	}
+
 	@Override
 	public ToolBarBuilder onSelected(Consumer<SelectionEvent> action) {
 		ToolItem item = checkCurrentItem(this.currentItem);
 		EventConsumer<SelectionEvent> listener = EventConsumer.selected(action);
 
-		item.addListener(SWT.Selection, listener);
-		item.addListener(SWT.DefaultSelection, listener);
+		addListener(item, SWT.Selection, listener);
+		addListener(item, SWT.DefaultSelection, listener);
 		return this;
 	}
 
@@ -197,8 +225,38 @@ public final class ToolBarBuilder extends CompositeBuilder<ToolBar> {
 		ToolItem item = checkCurrentItem(this.currentItem);
 		EventReceiver listener = EventReceiver.any(action);
 
-		item.addListener(SWT.Selection, listener);
-		item.addListener(SWT.DefaultSelection, listener);
+		addListener(item, SWT.Selection, listener);
+		addListener(item, SWT.DefaultSelection, listener);
+		return this;
+	}
+
+	@Override
+	public ToolBarBuilder onSelectedView(Consumer<EventView> action) {
+		ToolItem item = checkCurrentItem(this.currentItem);
+		EventViewConsumer listener = EventViewConsumer.selected(action);
+
+		addListener(item, SWT.Selection, listener);
+		addListener(item, SWT.DefaultSelection, listener);
+		return this;
+	}
+
+	@Override
+	public ToolBarBuilder onSelectedDebounced(long delayMillis, Runnable action) {
+		ToolItem item = checkCurrentItem(this.currentItem);
+		TimedEventConsumer listener = TimedEventConsumer.debounced(delayMillis, event -> action.run());
+
+		addListener(item, SWT.Selection, listener);
+		addListener(item, SWT.DefaultSelection, listener);
+		return this;
+	}
+
+	@Override
+	public ToolBarBuilder onSelectedThrottled(long intervalMillis, Runnable action) {
+		ToolItem item = checkCurrentItem(this.currentItem);
+		TimedEventConsumer listener = TimedEventConsumer.throttled(intervalMillis, event -> action.run());
+
+		addListener(item, SWT.Selection, listener);
+		addListener(item, SWT.DefaultSelection, listener);
 		return this;
 	}
 
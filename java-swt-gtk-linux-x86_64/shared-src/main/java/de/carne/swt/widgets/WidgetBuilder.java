@@ -22,10 +22,16 @@ import java.util.function.Supplier;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Widget;
 
+import de.carne.swt.events.CoalescedEventConsumer;
 import de.carne.swt.events.EventConsumer;
 import de.carne.swt.events.EventReceiver;
+import de.carne.swt.events.EventView;
+import de.carne.swt.events.EventViewConsumer;
+import de.carne.swt.events.ListenerProfiler;
+import de.carne.swt.events.TimedEventConsumer;
 
 /**
  * {@linkplain Widget} builder.
@@ -64,7 +70,7 @@ public class WidgetBuilder<T extends Widget> implements Supplier<T> {
 	 * @see Widget#addListener(int, org.eclipse.swt.widgets.Listener)
 	 */
 	public WidgetBuilder<T> onEvent(int eventType, Consumer<Event> action) {
-		this.widget.addListener(eventType, action::accept);
+		addListener(this.widget, eventType, action::accept);
 		return this;
 	}
 
@@ -79,7 +85,75 @@ public class WidgetBuilder<T extends Widget> implements Supplier<T> {
 	public WidgetBuilder<T> onEvent(int eventType, Runnable action) {
 		EventReceiver listener = EventReceiver.any(action);
 
-		this.widget.addListener(eventType, listener);
+		addListener(this.widget, eventType, listener);
+		return this;
+	}
+
+	/**
+	 * Sets a specific event action, which is invoked at most once per event loop turn with the latest event received.
+	 * <p>
+	 * This is intended for high frequency events (like {@linkplain SWT#Resize}, {@linkplain SWT#MouseMove},
+	 * {@linkplain SWT#Modify} or {@linkplain SWT#Selection} events of a scroll bar) with expensive actions.
+	 *
+	 * @param eventType the event type to set the action for.
+	 * @param action the action to set.
+	 * @return the updated builder.
+	 * @see CoalescedEventConsumer
+	 */
+	public WidgetBuilder<T> onEventCoalesced(int eventType, Consumer<Event> action) {
+		CoalescedEventConsumer listener = CoalescedEventConsumer.latest(action);
+
+		addListener(this.widget, eventType, listener);
+		return this;
+	}
+
+	/**
+	 * Sets a specific event action, which is invoked with the latest event as soon as no further event has been
+	 * received for the given delay.
+	 *
+	 * @param eventType the event type to set the action for.
+	 * @param delayMillis the delay (in milliseconds) to wait for further events.
+	 * @param action the action to set.
+	 * @return the updated builder.
+	 * @see TimedEventConsumer#debounced(long, Consumer)
+	 */
+	public WidgetBuilder<T> onEventDebounced(int eventType, long delayMillis, Consumer<Event> action) {
+		TimedEventConsumer listener = TimedEventConsumer.debounced(delayMillis, action);
+
+		addListener(this.widget, eventType, listener);
+		return this;
+	}
+
+	/**
+	 * Sets a specific event action, which is invoked at most once per the given interval.
+	 *
+	 * @param eventType the event type to set the action for.
+	 * @param intervalMillis the minimum interval (in milliseconds) between two action invocations.
+	 * @param action the action to set.
+	 * @return the updated builder.
+	 * @see TimedEventConsumer#throttled(long, Consumer)
+	 */
+	public WidgetBuilder<T> onEventThrottled(int eventType, long intervalMillis, Consumer<Event> action) {
+		TimedEventConsumer listener = TimedEventConsumer.throttled(intervalMillis, action);
+
+		addListener(this.widget, eventType, listener);
+		return this;
+	}
+
+	/**
+	 * Sets a specific event action receiving a reusable {@linkplain EventView}.
+	 * <p>
+	 * In contrast to the typed event actions, no object is allocated per dispatched event.
+	 *
+	 * @param eventType the event type to set the action for.
+	 * @param action the action to set.
+	 * @return the updated builder.
+	 * @see EventViewConsumer
+	 */
+	public WidgetBuilder<T> onEventView(int eventType, Consumer<EventView> action) {
+		EventViewConsumer listener = EventViewConsumer.any(action);
+
+		addListener(this.widget, eventType, listener);
 		return this;
 	}
 
@@ -93,7 +167,7 @@ public class WidgetBuilder<T extends Widget> implements Supplier<T> {
 	public WidgetBuilder<T> onDisposed(Consumer<DisposeEvent> action) {
 		EventConsumer<DisposeEvent> listener = EventConsumer.disposed(action);
 
-		this.widget.addListener(SWT.Dispose, listener);
+		addListener(this.widget, SWT.Dispose, listener);
 		return this;
 	}
 
@@ -107,8 +181,12 @@ public class WidgetBuilder<T extends Widget> implements Supplier<T> {
 	public WidgetBuilder<T> onDisposed(Runnable action) {
 		EventReceiver listener = EventReceiver.any(action);
 
-		this.widget.addListener(SWT.Dispose, listener);
+		addListener(this.widget, SWT.Dispose, listener);
 		return this;
 	}
 
+	static void addListener(Widget widget, int eventType, Listener listener) {
+		widget.addListener(eventType, ListenerProfiler.wrap(widget, eventType, listener));
+	}
+
 }
@@ -20,6 +20,7 @@ import java.io.File;
 import java.net.URL;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Handler;
 import java.util.logging.LogRecord;
@@ -36,6 +37,7 @@ import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.TableItem;
 
+import de.carne.swt.graphics.ImageKey;
 import de.carne.swt.graphics.ResourceException;
 import de.carne.swt.graphics.ResourceTracker;
 import de.carne.swt.layout.GridLayoutBuilder;
@@ -65,14 +67,15 @@ class LogViewUI extends ShellUserInterface {
 	private final LogHandler logHandler = new LogHandler();
 	private final ResourceTracker resources;
 	private final Logger logger;
-	private final NavigableMap<Integer, URL> logoMap;
+	private final NavigableMap<Integer, ImageKey> logoMap = new TreeMap<>();
 	private final Late<Table> logTableHolder = new Late<>();
 
 	public LogViewUI(Shell root, Logger logger, NavigableMap<Integer, URL> logoMap) {
 		super(root);
 		this.resources = ResourceTracker.forDevice(root.getDisplay()).forShell(root);
 		this.logger = logger;
-		this.logoMap = logoMap;
+		// Resolve the logo keys up front, as the logos are looked up for every published log record
+		logoMap.forEach((level, logo) -> this.logoMap.put(level, ImageKey.of(logo)));
 	}
 
 	@Override
@@ -199,7 +202,7 @@ class LogViewUI extends ShellUserInterface {
 			if (this.logoMap.isEmpty()) {
 				logTableItem.setText(0, record.getLevel().getLocalizedName());
 			} else {
-				Map.Entry<Integer, URL> logoEntry = this.logoMap.floorEntry(record.getLevel().intValue());
+				Map.Entry<Integer, ImageKey> logoEntry = this.logoMap.floorEntry(record.getLevel().intValue());
 
 				if (logoEntry != null) {
 					logTableItem.setImage(this.resources.getImage(logoEntry.getValue()));
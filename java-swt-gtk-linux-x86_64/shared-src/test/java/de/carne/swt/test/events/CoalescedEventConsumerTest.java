@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.test.events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Shell;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.carne.swt.events.CoalescedEventConsumer;
+import de.carne.swt.widgets.ShellBuilder;
+import de.carne.test.swt.DisableIfThreadNotSWTCapable;
+
+/**
+ * Test {@linkplain CoalescedEventConsumer} class.
+ */
+@DisableIfThreadNotSWTCapable
+class CoalescedEventConsumerTest {
+
+	@Test
+	void testCoalescedEvents() {
+		Display display = new Display();
+
+		try {
+			Shell shell = new Shell(display);
+			List<Integer> resizes = new ArrayList<>();
+			List<Integer> moves = new ArrayList<>();
+
+			new ShellBuilder(shell).onEventCoalesced(SWT.Resize, event -> resizes.add(event.x))
+					.onEventCoalesced(SWT.MouseMove, event -> moves.add(event.x));
+			for (int eventIndex = 1; eventIndex <= 10; eventIndex++) {
+				shell.notifyListeners(SWT.Resize, newEvent(eventIndex));
+				shell.notifyListeners(SWT.MouseMove, newEvent(-eventIndex));
+			}
+
+			Assertions.assertTrue(resizes.isEmpty());
+			Assertions.assertTrue(moves.isEmpty());
+
+			while (display.readAndDispatch()) {
+				// Process pending events
+			}
+
+			Assertions.assertEquals(List.of(10), resizes);
+			Assertions.assertEquals(List.of(-10), moves);
+
+			shell.notifyListeners(SWT.Resize, newEvent(11));
+			shell.dispose();
+			while (display.readAndDispatch()) {
+				// Process pending events
+			}
+
+			Assertions.assertEquals(List.of(10), resizes);
+		} finally {
+			display.dispose();
+		}
+	}
+
+	private static Event newEvent(int x) {
+		Event event = new Event();
+
+		event.x = x;
+		return event;
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.test.events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Event;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.carne.swt.events.EventView;
+import de.carne.swt.events.EventViewConsumer;
+
+/**
+ * Test {@linkplain EventViewConsumer} class.
+ */
+class EventViewConsumerTest {
+
+	@Test
+	void testEventView() {
+		List<EventView> views = new ArrayList<>();
+		List<Integer> xs = new ArrayList<>();
+		EventViewConsumer listener = EventViewConsumer.any(view -> {
+			views.add(view);
+			xs.add(view.getX());
+			view.setDoit(false);
+		});
+		Event event1 = newEvent(SWT.MouseMove, 1);
+		Event event2 = newEvent(SWT.MouseMove, 2);
+
+		listener.handleEvent(event1);
+		listener.handleEvent(event2);
+
+		Assertions.assertEquals(2, views.size());
+		Assertions.assertSame(views.get(0), views.get(1));
+		Assertions.assertEquals(List.of(1, 2), xs);
+		Assertions.assertFalse(event1.doit);
+		Assertions.assertFalse(event2.doit);
+	}
+
+	@Test
+	void testNestedEventView() {
+		List<Integer> xs = new ArrayList<>();
+		Event innerEvent = newEvent(SWT.Paint, 2);
+		EventViewConsumer[] listener = new EventViewConsumer[1];
+
+		listener[0] = EventViewConsumer.any(view -> {
+			if (view.getType() == SWT.MouseMove) {
+				listener[0].handleEvent(innerEvent);
+			}
+			xs.add(view.getX());
+		});
+		listener[0].handleEvent(newEvent(SWT.MouseMove, 1));
+
+		Assertions.assertEquals(List.of(2, 1), xs);
+	}
+
+	@Test
+	void testTypedEventView() {
+		List<Integer> types = new ArrayList<>();
+		List<EventViewConsumer> listeners = List.of(EventViewConsumer.selected(view -> types.add(view.getType())),
+				EventViewConsumer.mouseMoved(view -> types.add(view.getType())),
+				EventViewConsumer.painted(view -> types.add(view.getType())),
+				EventViewConsumer.keyPressed(view -> types.add(view.getType())));
+
+		for (EventViewConsumer listener : listeners) {
+			for (int type : new int[] { SWT.Selection, SWT.DefaultSelection, SWT.MouseMove, SWT.Paint, SWT.KeyDown }) {
+				listener.handleEvent(newEvent(type, 0));
+			}
+		}
+
+		Assertions.assertEquals(List.of(SWT.Selection, SWT.DefaultSelection, SWT.MouseMove, SWT.Paint, SWT.KeyDown),
+				types);
+	}
+
+	private static Event newEvent(int type, int x) {
+		Event event = new Event();
+
+		event.type = type;
+		event.x = x;
+		return event;
+	}
+
+}
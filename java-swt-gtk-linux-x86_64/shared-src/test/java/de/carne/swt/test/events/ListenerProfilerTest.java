@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.test.events;
+
+import java.util.Map;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Shell;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.carne.swt.events.ListenerProfiler;
+import de.carne.swt.util.LatencyHistogram;
+import de.carne.swt.widgets.ShellBuilder;
+import de.carne.test.swt.DisableIfThreadNotSWTCapable;
+
+/**
+ * Test {@linkplain ListenerProfiler} class.
+ */
+@DisableIfThreadNotSWTCapable
+class ListenerProfilerTest {
+
+	@Test
+	void testListenerProfiling() {
+		Display display = new Display();
+
+		try {
+			Shell shell = new Shell(display);
+			Runnable unprofiledAction = () -> {
+				// Nothing to do here
+			};
+			Runnable profiledAction = () -> {
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			};
+
+			ListenerProfiler.reset();
+			new ShellBuilder(shell).onEvent(SWT.Resize, unprofiledAction);
+			ListenerProfiler.setFrameBudget(1);
+			ListenerProfiler.setEnabled(true);
+			try {
+				new ShellBuilder(shell).onEvent(SWT.Resize, profiledAction);
+			} finally {
+				ListenerProfiler.setEnabled(false);
+			}
+			for (int eventIndex = 0; eventIndex < 3; eventIndex++) {
+				shell.notifyListeners(SWT.Resize, new Event());
+			}
+
+			Map<ListenerProfiler.Key, LatencyHistogram> statistics = ListenerProfiler.getStatistics();
+
+			Assertions.assertEquals(1, statistics.size());
+
+			ListenerProfiler.Key profiledKey = statistics.keySet().iterator().next();
+
+			Assertions.assertEquals(Shell.class.getName(), profiledKey.getWidgetTypeName());
+			Assertions.assertEquals(SWT.Resize, profiledKey.getEventType());
+			Assertions.assertTrue(profiledKey.getRegistrationSite().startsWith("ShellBuilder.onEvent ("));
+			Assertions.assertTrue(profiledKey.getRegistrationSite().contains("ListenerProfilerTest.java:"));
+			Assertions.assertEquals(3, statistics.get(profiledKey).getCount());
+			Assertions.assertTrue(statistics.get(profiledKey).getMax() >= 5_000_000);
+
+			ListenerProfiler.reset();
+
+			Assertions.assertTrue(ListenerProfiler.getStatistics().isEmpty());
+
+			shell.notifyListeners(SWT.Resize, new Event());
+
+			Assertions.assertEquals(1, ListenerProfiler.getStatistics().get(profiledKey).getCount());
+		} finally {
+			ListenerProfiler.setFrameBudget(16);
+			display.dispose();
+		}
+	}
+
+}
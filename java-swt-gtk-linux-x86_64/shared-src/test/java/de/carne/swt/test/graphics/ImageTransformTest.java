@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.test.graphics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.carne.swt.graphics.ImageKey;
+import de.carne.swt.graphics.ImageTransform;
+
+/**
+ * Test {@linkplain ImageTransform} class.
+ */
+class ImageTransformTest {
+
+	private static final PaletteData DIRECT_PALETTE = new PaletteData(0xff0000, 0x00ff00, 0x0000ff);
+
+	private static final int RED = 0xff0000;
+	private static final int GREEN = 0x00ff00;
+	private static final int BLUE = 0x0000ff;
+
+	@Test
+	void testResizeSizes() {
+		ImageData source = directImageData(64, 64, BLUE);
+
+		assertImageData(ImageTransform.resize(16, 16).apply(source, 100), 16, 16, BLUE);
+		assertImageData(ImageTransform.resize(100, 80).apply(source, 100), 100, 80, BLUE);
+		assertImageData(ImageTransform.resize(7, 3).apply(source, 100), 7, 3, BLUE);
+		Assertions.assertSame(source, ImageTransform.resize(64, 64).apply(source, 100));
+	}
+
+	@Test
+	void testResizeFractionalZoom() {
+		ImageData source = directImageData(20, 20, RED);
+
+		// 150% requires a non integer resampling in both directions
+		assertImageData(ImageTransform.resize(10, 10).apply(source, 150), 15, 15, RED);
+		assertImageData(ImageTransform.resize(16, 16).apply(directImageData(16, 16, RED), 150), 24, 24, RED);
+	}
+
+	@Test
+	void testResizeAlpha() {
+		ImageData source = directImageData(9, 9, RED);
+
+		source.alphaData = new byte[9 * 9];
+		for (int y = 0; y < 9; y++) {
+			for (int x = 0; x < 9; x++) {
+				// Fully transparent green left half and opaque red right half
+				if (x < 4) {
+					source.setPixel(x, y, GREEN);
+				} else {
+					source.setAlpha(x, y, 255);
+				}
+			}
+		}
+
+		for (ImageData scaled : new ImageData[] { ImageTransform.resize(4, 4).apply(source, 100),
+				ImageTransform.resize(13, 13).apply(source, 100) }) {
+			boolean partiallyTransparent = false;
+
+			for (int y = 0; y < scaled.height; y++) {
+				Assertions.assertEquals(0, scaled.getAlpha(0, y));
+				Assertions.assertEquals(255, scaled.getAlpha(scaled.width - 1, y));
+				for (int x = 0; x < scaled.width; x++) {
+					int alpha = scaled.getAlpha(x, y);
+
+					// Transparent pixels must not bleed into the visible ones
+					if (alpha > 0) {
+						Assertions.assertEquals(RED, rgb(scaled, x, y));
+					}
+					partiallyTransparent |= (alpha > 0 && alpha < 255);
+				}
+			}
+			Assertions.assertTrue(partiallyTransparent);
+		}
+	}
+
+	@Test
+	void testResizeTransparentPixel() {
+		ImageData source = new ImageData(8, 8, 8,
+				new PaletteData(new RGB[] { new RGB(0, 255, 0), new RGB(0, 0, 255) }));
+
+		for (int y = 0; y < 8; y++) {
+			for (int x = 4; x < 8; x++) {
+				source.setPixel(x, y, 1);
+			}
+		}
+		source.transparentPixel = 0;
+
+		ImageData scaled = ImageTransform.resize(4, 4).apply(source, 100);
+
+		for (int y = 0; y < 4; y++) {
+			Assertions.assertEquals(0, scaled.getAlpha(0, y));
+			Assertions.assertEquals(0, scaled.getAlpha(1, y));
+			Assertions.assertEquals(255, scaled.getAlpha(2, y));
+			Assertions.assertEquals(BLUE, rgb(scaled, 2, y));
+		}
+	}
+
+	@Test
+	void testResizePalette() {
+		RGB[] colors = new RGB[] { new RGB(0, 0, 0), new RGB(0x12, 0x34, 0x56), new RGB(255, 255, 255) };
+		ImageData source = new ImageData(6, 6, 8, new PaletteData(colors));
+
+		for (int y = 0; y < 6; y++) {
+			for (int x = 0; x < 6; x++) {
+				source.setPixel(x, y, 1);
+			}
+		}
+		assertImageData(ImageTransform.resize(4, 4).apply(source, 100), 4, 4, 0x123456);
+		assertImageData(ImageTransform.resize(9, 9).apply(source, 100), 9, 9, 0x123456);
+
+		// Grayscale conversion uses the same pixel lookup
+		ImageData grayscale = ImageTransform.grayscale().apply(source, 100);
+		int gray = rgb(grayscale, 0, 0) & 0xff;
+
+		assertImageData(grayscale, 6, 6, (gray << 16) | (gray << 8) | gray);
+	}
+
+	@Test
+	void testOverlay(@TempDir Path badgeDirectory) throws IOException {
+		Path badgeFile = badgeDirectory.resolve("badge.png");
+		ImageLoader badgeLoader = new ImageLoader();
+
+		badgeLoader.data = new ImageData[] { directImageData(4, 4, RED) };
+		badgeLoader.save(badgeFile.toString(), SWT.IMAGE_PNG);
+
+		ImageKey badgeKey = ImageKey.of(badgeFile.toUri().toURL());
+		ImageTransform overlay = ImageTransform.overlay(badgeKey, SWT.TOP | SWT.LEFT);
+
+		Assertions.assertEquals(overlay,
+				ImageTransform.overlay(ImageKey.of(badgeFile.toUri().toURL()), SWT.LEFT | SWT.TOP));
+		Assertions.assertNotEquals(overlay, ImageTransform.overlay(badgeKey, SWT.BOTTOM | SWT.RIGHT));
+
+		// The badge is resolved per zoom level (and scaled if there is no matching variant)
+		for (int zoom : new int[] { 100, 150, 200 }) {
+			int size = 8 * zoom / 100;
+			int badgeSize = 4 * zoom / 100;
+			ImageData overlayed = overlay.apply(directImageData(size, size, BLUE), zoom);
+
+			Assertions.assertEquals(size, overlayed.width);
+			Assertions.assertEquals(size, overlayed.height);
+			for (int y = 0; y < size; y++) {
+				for (int x = 0; x < size; x++) {
+					Assertions.assertEquals(x < badgeSize && y < badgeSize ? RED : BLUE, rgb(overlayed, x, y));
+				}
+			}
+		}
+	}
+
+	private static ImageData directImageData(int width, int height, int rgb) {
+		ImageData imageData = new ImageData(width, height, 24, DIRECT_PALETTE);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				imageData.setPixel(x, y, rgb);
+			}
+		}
+		return imageData;
+	}
+
+	private static int rgb(ImageData imageData, int x, int y) {
+		RGB rgb = imageData.palette.getRGB(imageData.getPixel(x, y));
+
+		return (rgb.red << 16) | (rgb.green << 8) | rgb.blue;
+	}
+
+	private static void assertImageData(ImageData imageData, int width, int height, int rgb) {
+		Assertions.assertEquals(width, imageData.width);
+		Assertions.assertEquals(height, imageData.height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				Assertions.assertEquals(rgb, rgb(imageData, x, y));
+				Assertions.assertEquals(255, imageData.getAlpha(x, y));
+			}
+		}
+	}
+
+}
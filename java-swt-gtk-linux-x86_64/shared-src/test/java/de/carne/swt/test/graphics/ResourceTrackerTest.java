@@ -0,0 +1,874 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.swt.test.graphics;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Cursor;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.graphics.Region;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.carne.swt.graphics.ImageAtlas;
+import de.carne.swt.graphics.ImageKey;
+import de.carne.swt.graphics.ImageTransform;
+import de.carne.swt.graphics.ResourceLeak;
+import de.carne.swt.graphics.ResourceLeakDetector;
+import de.carne.swt.graphics.ResourceLease;
+import de.carne.swt.graphics.ResourceManifest;
+import de.carne.swt.graphics.ResourceScope;
+import de.carne.swt.graphics.ResourceStatistics;
+import de.carne.swt.graphics.ResourceTracker;
+import de.carne.swt.test.SWTTestApplication;
+import de.carne.test.swt.DisableIfThreadNotSWTCapable;
+
+/**
+ * Test {@linkplain ResourceTracker} class.
+ */
+@DisableIfThreadNotSWTCapable
+class ResourceTrackerTest {
+
+	private static final String IMAGE16 = "app_icon16.png";
+	private static final String IMAGE32 = "app_icon32.png";
+
+	private static final long IMAGE16_SIZE = 16 * 16 * 4;
+	private static final long IMAGE32_SIZE = 32 * 32 * 4;
+
+	private static final RGB RGB1 = new RGB(0x12, 0x34, 0x56);
+	private static final RGB RGB2 = new RGB(0x65, 0x43, 0x21);
+
+	private static final int CONCURRENCY = 8;
+
+	private static final long DEMOTION_TIMEOUT = 10000;
+
+	@Nullable
+	private static Display display = null;
+
+	@BeforeAll
+	static void createDisplay() {
+		display = new Display();
+	}
+
+	@AfterAll
+	static void disposeDisplay() {
+		display().dispose();
+		display = null;
+	}
+
+	@AfterEach
+	void disposeResources() {
+		for (Shell shell : display().getShells()) {
+			shell.dispose();
+		}
+		ResourceTracker.forDevice(display()).disposeAll();
+	}
+
+	@Test
+	void testImageCacheBudget() {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+
+		Assertions.assertEquals(Long.MAX_VALUE, resources.getImageCacheBudget());
+
+		Image image16 = resources.getImage(SWTTestApplication.class, IMAGE16);
+
+		Assertions.assertSame(image16, resources.getImage(SWTTestApplication.class, IMAGE16));
+
+		Image image32 = resources.getImage(SWTTestApplication.class, IMAGE32);
+
+		Assertions.assertEquals(IMAGE16_SIZE + IMAGE32_SIZE, resources.getImageCacheSize());
+
+		resources.setImageCacheBudget(IMAGE32_SIZE);
+
+		Assertions.assertTrue(image16.isDisposed());
+		Assertions.assertFalse(image32.isDisposed());
+		Assertions.assertEquals(IMAGE32_SIZE, resources.getImageCacheSize());
+
+		Image reloadedImage16 = resources.getImage(SWTTestApplication.class, IMAGE16);
+
+		Assertions.assertNotSame(image16, reloadedImage16);
+		Assertions.assertTrue(image32.isDisposed());
+		Assertions.assertEquals(IMAGE16_SIZE, resources.getImageCacheSize());
+
+		resources.disposeAll();
+
+		Assertions.assertTrue(reloadedImage16.isDisposed());
+		Assertions.assertEquals(0, resources.getImageCacheSize());
+	}
+
+	@Test
+	void testResourceLeases() {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		ResourceLease<Color> colorLease1 = resources.acquireColor(RGB1);
+		ResourceLease<Color> colorLease2 = resources.acquireColor(RGB1);
+		Color color1 = colorLease1.get();
+
+		Assertions.assertSame(color1, colorLease2.get());
+
+		colorLease1.release();
+		colorLease1.release();
+
+		Assertions.assertTrue(colorLease1.isReleased());
+		Assertions.assertThrows(IllegalStateException.class, colorLease1::get);
+		Assertions.assertFalse(color1.isDisposed());
+
+		colorLease2.release();
+
+		Assertions.assertTrue(color1.isDisposed());
+
+		Color color2 = resources.getColor(RGB2);
+
+		try (ResourceLease<Color> colorLease3 = resources.acquireColor(RGB2)) {
+			Assertions.assertSame(color2, colorLease3.get());
+		}
+
+		Assertions.assertFalse(color2.isDisposed());
+
+		try (ResourceLease<Image> imageLease = resources.acquireImage(SWTTestApplication.class, IMAGE16)) {
+			Image image16 = imageLease.get();
+			Image image32 = resources.getImage(SWTTestApplication.class, IMAGE32);
+
+			resources.setImageCacheBudget(0);
+
+			Assertions.assertFalse(image16.isDisposed());
+			Assertions.assertTrue(image32.isDisposed());
+		}
+
+		Assertions.assertEquals(0, resources.getImageCacheSize());
+
+		resources.disposeAll();
+
+		Assertions.assertTrue(color2.isDisposed());
+	}
+
+	@Test
+	void testLeaseReleaseOffDeviceThread() throws InterruptedException, ExecutionException {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		ResourceLease<Color> colorLease = resources.acquireColor(RGB1);
+		Color color = colorLease.get();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			executor.submit(colorLease::release).get();
+		} finally {
+			executor.shutdown();
+		}
+
+		// The released color is disposed on the display thread
+		Assertions.assertTrue(colorLease.isReleased());
+		Assertions.assertFalse(color.isDisposed());
+
+		while (display().readAndDispatch()) {
+			// Run the pending disposal
+		}
+
+		Assertions.assertTrue(color.isDisposed());
+
+		resources.disposeAll();
+	}
+
+	@Test
+	void testMixedGettersAndLeases() {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		ResourceLease<Image> imageLease = resources.acquireImage(SWTTestApplication.class, IMAGE16);
+		Image leasedImage = imageLease.get();
+		Image ownedImage = resources.getImage(SWTTestApplication.class, IMAGE16);
+
+		Assertions.assertNotSame(leasedImage, ownedImage);
+
+		try (ResourceLease<Image> ownedImageLease = resources.acquireImage(SWTTestApplication.class, IMAGE16)) {
+			Assertions.assertSame(ownedImage, ownedImageLease.get());
+		}
+
+		Assertions.assertFalse(ownedImage.isDisposed());
+		Assertions.assertFalse(leasedImage.isDisposed());
+
+		imageLease.release();
+
+		Assertions.assertTrue(leasedImage.isDisposed());
+		Assertions.assertFalse(ownedImage.isDisposed());
+		Assertions.assertSame(ownedImage, resources.getImage(SWTTestApplication.class, IMAGE16));
+
+		resources.disposeAll();
+
+		Assertions.assertTrue(ownedImage.isDisposed());
+	}
+
+	@Test
+	void testGetImageAsync() {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		Image placeholder = resources.getImage(SWTTestApplication.class, IMAGE16);
+		CompletableFuture<Image> imageFuture1 = resources
+				.getImageAsync(SWTTestApplication.class.getResource(IMAGE32));
+		CompletableFuture<Image> imageFuture2 = resources
+				.getImageAsync(SWTTestApplication.class.getResource(IMAGE32));
+
+		Assertions.assertSame(imageFuture1, imageFuture2);
+
+		while (!imageFuture1.isDone()) {
+			if (!display().readAndDispatch()) {
+				display().sleep();
+			}
+		}
+
+		Image image32 = imageFuture1.join();
+
+		Assertions.assertSame(image32, resources.getImage(SWTTestApplication.class, IMAGE32));
+		Assertions.assertSame(image32, resources.getImageAsync(SWTTestApplication.class.getResource(IMAGE32),
+				placeholder, image -> Assertions.fail()));
+
+		resources.disposeAll();
+	}
+
+	@Test
+	void testPreload() {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		ResourceManifest manifest = new ResourceManifest()
+				.addImages(SWTTestApplication.class, Arrays.asList(IMAGE16, IMAGE32)).addColor(RGB1)
+				.addFont(display().getSystemFont().getFontData()[0]);
+		List<Integer> progress = new ArrayList<>();
+		CompletableFuture<Void> preloadFuture = resources.preload(manifest, (completed, total) -> {
+			Assertions.assertEquals(6, total);
+			progress.add(completed);
+		});
+
+		while (!preloadFuture.isDone()) {
+			if (!display().readAndDispatch()) {
+				display().sleep();
+			}
+		}
+		preloadFuture.join();
+
+		// The reported progress only goes up
+		Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6), progress);
+		Assertions.assertEquals(IMAGE16_SIZE + IMAGE32_SIZE, resources.getImageCacheSize());
+
+		resources.disposeAll();
+	}
+
+	@Test
+	void testImageDataCache(@TempDir Path cacheDirectory) throws IOException {
+
+		try {
+			ResourceTracker.setImageDataCacheDirectory(cacheDirectory);
+
+			Assertions.assertEquals(cacheDirectory, ResourceTracker.getImageDataCacheDirectory());
+
+			ResourceTracker resources = ResourceTracker.forDevice(display());
+			Rectangle imageBounds = resources.getImage(SWTTestApplication.class, IMAGE32).getBounds();
+
+			Assertions.assertEquals(1, countFiles(cacheDirectory));
+
+			Path entryFile = listFiles(cacheDirectory).get(0);
+			long entrySize = Files.size(entryFile);
+
+			// Disposing the tracker drops the memoized image data, hence the next load has to read the cache entry
+			// (which marks the entry as used)
+			resources.disposeAll();
+			Files.setLastModifiedTime(entryFile, FileTime.fromMillis(0));
+
+			Assertions.assertEquals(imageBounds, resources.getImage(SWTTestApplication.class, IMAGE32).getBounds());
+			Assertions.assertEquals(List.of(entryFile), listFiles(cacheDirectory));
+			Assertions.assertNotEquals(0, Files.getLastModifiedTime(entryFile).toMillis());
+
+			// A corrupt entry is discarded and re-created
+			resources.disposeAll();
+			Files.write(entryFile, corruptEntry());
+
+			Assertions.assertEquals(imageBounds, resources.getImage(SWTTestApplication.class, IMAGE32).getBounds());
+			Assertions.assertEquals(entrySize, Files.size(entryFile));
+
+			// Exceeding the maximum size deletes the least recently used entries
+			resources.disposeAll();
+			Files.setLastModifiedTime(entryFile, FileTime.fromMillis(0));
+			ResourceTracker.setImageDataCacheDirectory(cacheDirectory, entrySize);
+			resources.getImage(SWTTestApplication.class, IMAGE16);
+
+			Assertions.assertFalse(Files.exists(entryFile));
+			Assertions.assertEquals(1, countFiles(cacheDirectory));
+
+			resources.disposeAll();
+		} finally {
+			ResourceTracker.setImageDataCacheDirectory(null);
+		}
+	}
+
+	@Test
+	void testScaledVariantProbes() throws IOException {
+		CountingUrlStreamHandler urlHandler = new CountingUrlStreamHandler();
+		URL imageUrl = new URL(CountingUrlStreamHandler.PROTOCOL, null, -1, "/" + IMAGE32, urlHandler);
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		Image image = resources.getImage(imageUrl);
+
+		Assertions.assertEquals(1, urlHandler.getOpenCount("/" + IMAGE32));
+
+		Assertions.assertNotNull(image.getImageData(150));
+		Assertions.assertNotNull(image.getImageData(200));
+		Assertions.assertNotNull(image.getImageData(150));
+		Assertions.assertNotNull(image.getImageData(200));
+
+		// Missing variants are probed only once (whatever the cause of the failure)
+		Assertions.assertEquals(1, urlHandler.getOpenCount("/app_icon32@1.5x.png"));
+		Assertions.assertEquals(1, urlHandler.getOpenCount("/app_icon32@2x.png"));
+		Assertions.assertEquals(1, urlHandler.getOpenCount("/" + IMAGE32));
+
+		// Disposing the tracker drops the probe results and memoized image data
+		resources.disposeAll();
+		resources.getImage(imageUrl).getImageData(200);
+
+		Assertions.assertEquals(2, urlHandler.getOpenCount("/app_icon32@2x.png"));
+		Assertions.assertEquals(2, urlHandler.getOpenCount("/" + IMAGE32));
+
+		resources.disposeAll();
+	}
+
+	@Test
+	void testSharedImageData() throws IOException {
+		CountingUrlStreamHandler urlHandler = new CountingUrlStreamHandler();
+		URL imageUrl = new URL(CountingUrlStreamHandler.PROTOCOL, null, -1, "/" + IMAGE32, urlHandler);
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+
+		try (ResourceScope scope1 = resources.forScope(); ResourceScope scope2 = resources.forScope()) {
+			Image image1 = scope1.getImage(imageUrl);
+			Image image2 = scope2.getImage(imageUrl);
+
+			// Both images are backed by the same decoded image data
+			Assertions.assertNotSame(image1, image2);
+			Assertions.assertEquals(1, urlHandler.getOpenCount("/" + IMAGE32));
+
+			ImageData imageData1 = image1.getImageData(150);
+			byte[] expectedData = imageData1.data.clone();
+
+			// Modifying the handed out image data or deriving from it must not affect the shared image data
+			Arrays.fill(imageData1.data, (byte) 0x55);
+			scope1.getDerivedImage(ImageKey.of(imageUrl), ImageTransform.grayscale()).getImageData(150);
+
+			Assertions.assertArrayEquals(expectedData, image2.getImageData(150).data);
+			Assertions.assertEquals(1, urlHandler.getOpenCount("/" + IMAGE32));
+		}
+		resources.disposeAll();
+	}
+
+	@Test
+	void testPackedColors() {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		Color color1 = resources.getColor(RGB1);
+
+		Assertions.assertSame(color1, resources.getColor(0x123456));
+		Assertions.assertSame(color1, resources.getColor(0x12, 0x34, 0x56, 0xff));
+
+		Color color2 = resources.getColor(0x65, 0x43, 0x21, 0x80);
+
+		Assertions.assertEquals(RGB2, color2.getRGB());
+		Assertions.assertEquals(0x80, color2.getAlpha());
+		Assertions.assertSame(color2, resources.getColor(0x65, 0x43, 0x21, 0x80));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> resources.getColor(0x100, 0, 0, 0xff));
+
+		resources.disposeAll();
+
+		Assertions.assertTrue(color1.isDisposed());
+		Assertions.assertNotSame(color1, resources.getColor(0x123456));
+
+		resources.disposeAll();
+	}
+
+	@Test
+	void testDerivedFonts() {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		Font baseFont = display().getSystemFont();
+		int baseHeight = baseFont.getFontData()[0].getHeight();
+		Font boldFont = resources.getDerivedFont(baseFont, SWT.BOLD, 0);
+
+		Assertions.assertNotSame(baseFont, boldFont);
+		Assertions.assertSame(boldFont, resources.getDerivedFont(baseFont, SWT.BOLD, 0));
+		Assertions.assertEquals(SWT.BOLD, boldFont.getFontData()[0].getStyle() & SWT.BOLD);
+
+		Font largerFont = resources.getDerivedFont(baseFont, SWT.NORMAL, 2);
+
+		Assertions.assertNotSame(boldFont, largerFont);
+		Assertions.assertEquals(baseHeight + 2, largerFont.getFontData()[0].getHeight());
+
+		// Derived fonts are keyed by the base font's font data (not by the base font instance)
+		Font equivalentFont = new Font(display(), baseFont.getFontData());
+
+		Assertions.assertSame(boldFont, resources.getDerivedFont(equivalentFont, SWT.BOLD, 0));
+
+		equivalentFont.dispose();
+
+		Assertions.assertSame(boldFont, resources.getDerivedFont(baseFont, SWT.BOLD, 0));
+		Assertions.assertFalse(boldFont.isDisposed());
+
+		resources.disposeAll();
+
+		Assertions.assertTrue(boldFont.isDisposed());
+		Assertions.assertFalse(baseFont.isDisposed());
+	}
+
+	@Test
+	void testImageAtlas() {
+		ImageAtlas atlas = new ImageAtlas(SWTTestApplication.class.getResource(IMAGE32),
+				Map.of("topLeft", new Rectangle(0, 0, 16, 16), "bottomRight", new Rectangle(16, 16, 16, 16)));
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		Image[] images = resources.getImages(atlas, Arrays.asList("topLeft", "bottomRight"));
+
+		Assertions.assertEquals(2, images.length);
+		Assertions.assertNotSame(images[0], images[1]);
+		Assertions.assertEquals(new Rectangle(0, 0, 16, 16), images[0].getBounds());
+		Assertions.assertEquals(new Rectangle(0, 0, 16, 16), images[1].getBounds());
+		Assertions.assertSame(images[0], resources.getImage(atlas, "topLeft"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> resources.getImage(atlas, "unknown"));
+
+		resources.disposeAll();
+
+		Assertions.assertTrue(images[0].isDisposed());
+		Assertions.assertTrue(images[1].isDisposed());
+	}
+
+	@Test
+	void testLeakDetector() {
+
+		try {
+			ResourceLeakDetector.setSamplingRate(1.0);
+
+			Shell shell = new Shell(display());
+			ResourceTracker resources = ResourceTracker.forDevice(display()).forShell(shell);
+			ResourceLease<Color> releasedLease = resources.acquireColor(RGB1);
+			ResourceLease<Color> leakedLease = resources.acquireColor(RGB2);
+
+			// Tracker owned resources are disposed together with the tracker and hence never reported
+			resources.getImage(SWTTestApplication.class, IMAGE16);
+			releasedLease.release();
+			shell.dispose();
+
+			List<ResourceLeak> leaks = ResourceLeakDetector.report(display());
+
+			Assertions.assertEquals(1, leaks.size());
+			Assertions.assertEquals(ResourceLeak.Kind.UNRELEASED_LEASE, leaks.get(0).getKind());
+			Assertions.assertNotNull(leaks.get(0).getAllocation());
+			Assertions.assertTrue(ResourceLeakDetector.report(display()).isEmpty());
+
+			leakedLease.release();
+		} finally {
+			ResourceLeakDetector.setSamplingRate(0.0);
+		}
+	}
+
+	@Test
+	void testStatistics() throws JMException {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+
+		resources.getColor(RGB1);
+		resources.getColor(RGB1);
+		resources.getImage(SWTTestApplication.class, IMAGE16);
+
+		List<ResourceStatistics> statistics = resources.getStatistics();
+		ResourceStatistics colorStatistics = getStatistics(statistics, Color.class);
+
+		Assertions.assertEquals(1, colorStatistics.getHits());
+		Assertions.assertEquals(1, colorStatistics.getMisses());
+		Assertions.assertEquals(1, colorStatistics.getLiveHandles());
+		Assertions.assertEquals(1, colorStatistics.getCreateLatency().getCount());
+
+		ResourceStatistics imageStatistics = getStatistics(statistics, Image.class);
+
+		Assertions.assertEquals(0, imageStatistics.getHits());
+		Assertions.assertEquals(1, imageStatistics.getMisses());
+		Assertions.assertEquals(IMAGE16_SIZE, imageStatistics.getEstimatedBytes());
+
+		MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+		ObjectName mbeanName = resources.registerMBean(getClass().getSimpleName());
+
+		Assertions.assertTrue(mbeanServer.isRegistered(mbeanName));
+		Assertions.assertNotNull(mbeanServer.getAttribute(mbeanName, "Hits"));
+
+		resources.disposeAll();
+
+		Assertions.assertFalse(mbeanServer.isRegistered(mbeanName));
+		Assertions.assertEquals(0, getStatistics(resources.getStatistics(), Color.class).getLiveHandles());
+	}
+
+	@Test
+	void testImageDemotion() {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+
+		Assertions.assertFalse(resources.isImageDemotionEnabled());
+
+		Image oldImage = resources.getImage(SWTTestApplication.class, IMAGE16);
+		Image leasedImage = resources.getImage(SWTTestApplication.class, IMAGE32);
+		ResourceLease<Image> lease = resources.acquireImage(SWTTestApplication.class, IMAGE32);
+
+		Assertions.assertSame(leasedImage, lease.get());
+
+		try {
+			// Signal memory pressure as soon as there is any heap usage at all
+			ResourceTracker.setMemoryPressureThreshold(Double.MIN_VALUE);
+			resources.setImageDemotion(true);
+
+			Assertions.assertTrue(resources.isImageDemotionEnabled());
+
+			long timeout = System.currentTimeMillis() + DEMOTION_TIMEOUT;
+
+			while (!oldImage.isDisposed() && System.currentTimeMillis() < timeout) {
+				System.gc();
+				while (display().readAndDispatch()) {
+					// Process the pending demotion (if any)
+				}
+			}
+
+			// Images accessed before the demotion has been enabled are demoted unless they are leased
+			Assertions.assertTrue(oldImage.isDisposed());
+			Assertions.assertFalse(leasedImage.isDisposed());
+			Assertions.assertFalse(resources.getImage(SWTTestApplication.class, IMAGE16).isDisposed());
+			Assertions.assertSame(leasedImage, resources.getImage(SWTTestApplication.class, IMAGE32));
+		} finally {
+			lease.release();
+			resources.disposeAll();
+			ResourceTracker.setMemoryPressureThreshold(0.0);
+		}
+
+		Assertions.assertFalse(resources.isImageDemotionEnabled());
+	}
+
+	@Test
+	void testTypedResources() {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		Cursor cursor = resources.getCursor(SWT.CURSOR_HAND);
+
+		Assertions.assertSame(cursor, resources.getCursor(SWT.CURSOR_HAND));
+
+		Rectangle bounds = new Rectangle(0, 0, 16, 16);
+		Region region = resources.getResource(Region.class, bounds, (device, descriptor) -> {
+			Region createdRegion = new Region(device);
+
+			createdRegion.add(descriptor);
+			return createdRegion;
+		});
+
+		Assertions.assertSame(region, resources.getResource(Region.class, bounds, (device, descriptor) -> {
+			throw new IllegalStateException();
+		}));
+
+		Shell shell = new Shell(display());
+		ResourceTracker shellResources = resources.forShell(shell);
+
+		Assertions.assertSame(cursor, shellResources.getCursor(SWT.CURSOR_HAND));
+
+		ResourceLease<Cursor> cursorLease = shellResources.acquireResource(Cursor.class,
+				Integer.valueOf(SWT.CURSOR_WAIT), (device, descriptor) -> new Cursor(device, descriptor));
+		Cursor waitCursor = cursorLease.get();
+
+		Assertions.assertEquals(1, getStatistics(shellResources.getStatistics(), Cursor.class).getLiveHandles());
+
+		shell.dispose();
+
+		Assertions.assertTrue(waitCursor.isDisposed());
+		Assertions.assertFalse(cursor.isDisposed());
+
+		resources.disposeAll();
+
+		Assertions.assertTrue(cursor.isDisposed());
+		Assertions.assertTrue(region.isDisposed());
+	}
+
+	@Test
+	void testDerivedImages() {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		ImageKey imageKey = ImageKey.of(SWTTestApplication.class, IMAGE32);
+		Image disabledImage = resources.getDerivedImage(imageKey, ImageTransform.disabled());
+
+		Assertions.assertSame(disabledImage, resources.getDerivedImage(imageKey, ImageTransform.disabled()));
+		Assertions.assertNotSame(disabledImage, resources.getDerivedImage(imageKey, ImageTransform.grayscale()));
+		Assertions.assertNotSame(disabledImage,
+				resources.getDerivedImage(imageKey, ImageTransform.tint(new RGB(0xff, 0, 0), 0x80)));
+
+		ImageKey badgeKey = ImageKey.of(SWTTestApplication.class, IMAGE16);
+		Image badgedImage = resources.getDerivedImage(imageKey,
+				ImageTransform.overlay(badgeKey, SWT.BOTTOM | SWT.RIGHT).andThen(ImageTransform.disabled()));
+
+		Assertions.assertEquals(disabledImage.getBounds(), badgedImage.getBounds());
+
+		Image resizedImage = resources.getDerivedImage(imageKey, ImageTransform.resize(16, 16));
+
+		Assertions.assertEquals(new Rectangle(0, 0, 16, 16), resizedImage.getBounds());
+
+		// Derived images do not depend on the base image resource
+		try (ResourceScope scope = resources.forScope()) {
+			Image image = scope.getImage(imageKey);
+			Image scopedDisabledImage = scope.getDerivedImage(imageKey, ImageTransform.disabled());
+
+			Assertions.assertSame(disabledImage, scopedDisabledImage);
+			Assertions.assertEquals(image.getBounds(), scopedDisabledImage.getBounds());
+		}
+		Assertions.assertNotNull(disabledImage.getImageData(150));
+
+		resources.disposeAll();
+
+		Assertions.assertTrue(disabledImage.isDisposed());
+		Assertions.assertTrue(resizedImage.isDisposed());
+	}
+
+	@Test
+	void testGetImages() {
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		Image image16 = resources.getImage(SWTTestApplication.class, IMAGE16);
+		Image[] images = resources.getImages(SWTTestApplication.class, Arrays.asList(IMAGE16, IMAGE32));
+
+		Assertions.assertEquals(2, images.length);
+		Assertions.assertSame(image16, images[0]);
+		Assertions.assertSame(resources.getImage(SWTTestApplication.class, IMAGE32), images[1]);
+		Assertions.assertEquals(2, getStatistics(resources.getStatistics(), Image.class).getMisses());
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> resources.getImages(SWTTestApplication.class, Arrays.asList(IMAGE16, "unknown.png")));
+
+		resources.disposeAll();
+	}
+
+	@Test
+	void testScopes() {
+		Shell shell = new Shell(display());
+		ResourceTracker shellResources = ResourceTracker.forDevice(display()).forShell(shell);
+		Color shellColor = shellResources.getColor(RGB1);
+		Composite panel = new Composite(shell, SWT.NONE);
+		ResourceTracker panelResources = shellResources.forComposite(panel);
+		Color panelColor = panelResources.getColor(RGB2);
+
+		Assertions.assertSame(shellColor, panelResources.getColor(RGB1));
+
+		Color scopeColor;
+
+		try (ResourceScope scope = panelResources.forScope()) {
+			Assertions.assertSame(shellColor, scope.getColor(RGB1));
+			Assertions.assertSame(panelColor, scope.getColor(RGB2));
+
+			scopeColor = scope.getColor(0x112233);
+
+			Assertions.assertNotSame(scopeColor, panelResources.getColor(0x112233));
+		}
+
+		Assertions.assertTrue(scopeColor.isDisposed());
+		Assertions.assertFalse(panelColor.isDisposed());
+
+		panel.dispose();
+
+		Assertions.assertTrue(panelColor.isDisposed());
+		Assertions.assertFalse(shellColor.isDisposed());
+
+		shell.dispose();
+
+		Assertions.assertTrue(shellColor.isDisposed());
+	}
+
+	@Test
+	void testImageKeys() {
+		ImageKey imageKey = ImageKey.of(SWTTestApplication.class, IMAGE16);
+
+		Assertions.assertSame(imageKey, ImageKey.of(SWTTestApplication.class, IMAGE16));
+		Assertions.assertSame(imageKey, ImageKey.of(Objects.requireNonNull(SWTTestApplication.class.getResource(IMAGE16))));
+		Assertions.assertNotEquals(imageKey, ImageKey.of(SWTTestApplication.class, IMAGE32));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> ImageKey.of(SWTTestApplication.class, "unknown.png"));
+
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+		Image image = resources.getImage(imageKey);
+
+		Assertions.assertSame(image, resources.getImage(SWTTestApplication.class, IMAGE16));
+		Assertions.assertSame(image, resources.getImage(imageKey.getUrl()));
+
+		resources.disposeAll();
+	}
+
+	@Test
+	void testConcurrentAccess() {
+		Thread displayThread = display().getThread();
+		Rectangle bounds = new Rectangle(0, 0, 16, 16);
+		List<Thread> creationThreads = Collections.synchronizedList(new ArrayList<>());
+		ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+		List<CompletableFuture<List<Object>>> lookups = new ArrayList<>();
+
+		try {
+			for (int lookupIndex = 0; lookupIndex < CONCURRENCY; lookupIndex++) {
+				lookups.add(CompletableFuture.supplyAsync(() -> {
+					ResourceTracker resources = ResourceTracker.forDevice(display());
+					Region region = resources.getResource(Region.class, bounds, (device, descriptor) -> {
+						Region createdRegion = new Region(device);
+
+						creationThreads.add(Thread.currentThread());
+						createdRegion.add(descriptor);
+						return createdRegion;
+					});
+
+					return List.of(resources, region, resources.getColor(RGB1),
+							resources.getImage(SWTTestApplication.class, IMAGE16));
+				}, executor));
+			}
+
+			CompletableFuture<Void> allLookups = CompletableFuture
+					.allOf(lookups.toArray(new CompletableFuture<?>[lookups.size()]));
+
+			allLookups.whenComplete((ignored, exception) -> display().wake());
+			while (!allLookups.isDone()) {
+				if (!display().readAndDispatch()) {
+					display().sleep();
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		List<Object> expected = lookups.get(0).join();
+
+		for (CompletableFuture<List<Object>> lookup : lookups) {
+			List<Object> actual = lookup.join();
+
+			for (int resourceIndex = 0; resourceIndex < expected.size(); resourceIndex++) {
+				Assertions.assertSame(expected.get(resourceIndex), actual.get(resourceIndex));
+			}
+		}
+		Assertions.assertSame(ResourceTracker.forDevice(display()), expected.get(0));
+		Assertions.assertEquals(List.of(displayThread), creationThreads);
+
+		ResourceTracker resources = ResourceTracker.forDevice(display());
+
+		Assertions.assertEquals(1, getStatistics(resources.getStatistics(), Color.class).getCreateLatency().getCount());
+		Assertions.assertEquals(1, getStatistics(resources.getStatistics(), Image.class).getCreateLatency().getCount());
+	}
+
+	private static Display display() {
+		return Objects.requireNonNull(display);
+	}
+
+	private static ResourceStatistics getStatistics(List<ResourceStatistics> statistics, Class<?> type) {
+		return statistics.stream().filter(typeStatistics -> typeStatistics.getType().equals(type)).findFirst()
+				.orElseThrow();
+	}
+
+	private static long countFiles(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private static List<Path> listFiles(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.collect(Collectors.toList());
+		}
+	}
+
+	private static byte[] corruptEntry() {
+		ByteBuffer entryBuffer = ByteBuffer.allocate(64);
+
+		// Valid header followed by a bogus palette size
+		entryBuffer.putInt(0x53574944).putInt(1);
+		for (int headerIndex = 0; headerIndex < 8; headerIndex++) {
+			entryBuffer.putInt(32);
+		}
+		entryBuffer.put((byte) 0).putInt(Integer.MAX_VALUE);
+		return Arrays.copyOf(entryBuffer.array(), entryBuffer.position());
+	}
+
+	private static class CountingUrlStreamHandler extends URLStreamHandler {
+
+		static final String PROTOCOL = "counting";
+
+		private final Map<String, AtomicInteger> openCounts = new ConcurrentHashMap<>();
+
+		CountingUrlStreamHandler() {
+			// Nothing to do here
+		}
+
+		int getOpenCount(String path) {
+			AtomicInteger openCount = this.openCounts.get(path);
+
+			return (openCount != null ? openCount.get() : 0);
+		}
+
+		@Override
+		protected URLConnection openConnection(@Nullable URL url) {
+			return new URLConnection(url) {
+
+				@Override
+				public void connect() {
+					// Nothing to do here
+				}
+
+				@Override
+				public InputStream getInputStream() throws IOException {
+					String path = getURL().getPath();
+
+					CountingUrlStreamHandler.this.openCounts.computeIfAbsent(path, key -> new AtomicInteger())
+							.incrementAndGet();
+					// Simulate a transient failure for the 150% variant and a missing resource for all others
+					if (path.contains("@1.5x")) {
+						throw new IOException("Resource temporarily unavailable: " + path);
+					}
+
+					InputStream resourceStream = SWTTestApplication.class.getResourceAsStream(path.substring(1));
+
+					if (resourceStream == null) {
+						throw new FileNotFoundException(path);
+					}
+					return resourceStream;
+				}
+
+			};
+		}
+
+	}
+
+}
@@ -16,11 +16,20 @@
  */
 package de.carne.swt.test.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import de.carne.swt.util.Property;
 import de.carne.swt.util.PropertyChangedListener;
+import de.carne.swt.util.PropertyTransaction;
 
 /**
  * Test {@linkplain Property} class.
@@ -29,6 +38,10 @@ class PropertyTest {
 
 	private static final String STRING_PROPERTY_VALUE_A = "A";
 	private static final String STRING_PROPERTY_VALUE_B = "B";
+	private static final String STRING_PROPERTY_VALUE_C = "C";
+
+	private static final int CONCURRENCY = 4;
+	private static final int SETS_PER_THREAD = 10000;
 
 	@Test
 	void testProperty() {
@@ -64,17 +77,153 @@ class PropertyTest {
 		Assertions.assertEquals(2, counter2.value());
 	}
 
+	@Test
+	void testReentrantListener() {
+		Counter counter = new Counter();
+		Property<String> stringProperty = new Property<>(STRING_PROPERTY_VALUE_A);
+		PropertyChangedListener<String> reentrantListener = new PropertyChangedListener<>() {
+
+			@Override
+			public void changed(String newValue, String oldValue) {
+				stringProperty.removeChangedListener(this);
+				stringProperty.addChangedListener(counter);
+			}
+
+		};
+
+		stringProperty.addChangedListener(reentrantListener);
+		stringProperty.set(STRING_PROPERTY_VALUE_B);
+
+		Assertions.assertEquals(0, counter.value());
+
+		stringProperty.set(STRING_PROPERTY_VALUE_C);
+
+		Assertions.assertEquals(1, counter.value());
+	}
+
+	@Test
+	void testTransaction() {
+		Counter counter1 = new Counter();
+		Counter counter2 = new Counter();
+		Property<String> stringProperty1 = new Property<>(STRING_PROPERTY_VALUE_A);
+		Property<String> stringProperty2 = new Property<>(STRING_PROPERTY_VALUE_A);
+
+		stringProperty1.addChangedListener(counter1);
+		stringProperty2.addChangedListener(counter2);
+		try (PropertyTransaction transaction = PropertyTransaction.begin()) {
+			stringProperty1.set(STRING_PROPERTY_VALUE_B);
+			try (PropertyTransaction nestedTransaction = PropertyTransaction.begin()) {
+				stringProperty1.set(STRING_PROPERTY_VALUE_C);
+				stringProperty2.set(STRING_PROPERTY_VALUE_B);
+				stringProperty2.set(STRING_PROPERTY_VALUE_A);
+
+				Assertions.assertSame(transaction, nestedTransaction);
+			}
+
+			Assertions.assertEquals(STRING_PROPERTY_VALUE_C, stringProperty1.get());
+			Assertions.assertEquals(0, counter1.value());
+			Assertions.assertEquals(0, counter2.value());
+		}
+
+		Assertions.assertEquals(1, counter1.value());
+		Assertions.assertEquals(STRING_PROPERTY_VALUE_A, counter1.lastOldValue());
+		Assertions.assertEquals(STRING_PROPERTY_VALUE_C, counter1.lastNewValue());
+		Assertions.assertEquals(0, counter2.value());
+
+		PropertyTransaction forcedTransaction = PropertyTransaction.begin();
+
+		stringProperty2.set(STRING_PROPERTY_VALUE_A, true);
+
+		Assertions.assertEquals(0, counter2.value());
+
+		forcedTransaction.close();
+
+		Assertions.assertEquals(1, counter2.value());
+
+		stringProperty1.set(STRING_PROPERTY_VALUE_A);
+
+		Assertions.assertEquals(2, counter1.value());
+	}
+
+	@Test
+	void testTransactionOwner() throws InterruptedException, ExecutionException {
+		PropertyTransaction transaction = PropertyTransaction.begin();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			Assertions.assertThrows(IllegalStateException.class, () -> {
+				try {
+					executor.submit(transaction::close).get();
+				} catch (ExecutionException e) {
+					throw e.getCause();
+				}
+			});
+		} finally {
+			executor.shutdown();
+		}
+		Assertions.assertSame(transaction, PropertyTransaction.begin());
+
+		transaction.close();
+		transaction.close();
+
+		Assertions.assertNotSame(transaction, PropertyTransaction.begin());
+	}
+
+	@Test
+	void testConcurrentSet() throws InterruptedException, ExecutionException {
+		Property<Integer> intProperty = new Property<>(Integer.valueOf(-1));
+		AtomicReference<Integer> lastNotifiedValue = new AtomicReference<>();
+
+		intProperty.addChangedListener((newValue, oldValue) -> lastNotifiedValue.set(newValue));
+
+		ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+
+		try {
+			List<Future<?>> setters = new ArrayList<>();
+
+			for (int setterIndex = 0; setterIndex < CONCURRENCY; setterIndex++) {
+				int setterBase = setterIndex * SETS_PER_THREAD;
+
+				setters.add(executor.submit(() -> {
+					for (int setIndex = 0; setIndex < SETS_PER_THREAD; setIndex++) {
+						intProperty.set(Integer.valueOf(setterBase + setIndex));
+					}
+				}));
+			}
+			for (Future<?> setter : setters) {
+				setter.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// Notifications are dispatched in order, hence the last notification always reports the current value
+		Assertions.assertEquals(intProperty.get(), lastNotifiedValue.get());
+	}
+
 	private class Counter implements PropertyChangedListener<String> {
 
 		private int value = 0;
+		private String lastNewValue = "";
+		private String lastOldValue = "";
 
 		public int value() {
 			return this.value;
 		}
 
+		public String lastNewValue() {
+			return this.lastNewValue;
+		}
+
+		public String lastOldValue() {
+			return this.lastOldValue;
+		}
+
 		@Override
 		public void changed(String newValue, String oldValue) {
 			this.value++;
+			this.lastNewValue = newValue;
+			this.lastOldValue = oldValue;
 		}
 
 	}